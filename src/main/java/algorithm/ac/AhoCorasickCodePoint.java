@@ -0,0 +1,666 @@
+package algorithm.ac;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/*
+ * 按码点（code point）工作的AC自动机。
+ * 1. 文本按码点而不是按UTF-16单元扫描，代理对（emoji、扩展汉字）作为一个符号处理；
+ * 2. 码点先映射成稠密的符号编号，转移表宽度只等于词典实际用到的字符数；
+ * 3. 结点用int编号表示，所有状态数组都是基本类型，扫描过程中不产生装箱对象；
+ * 4. 可选的ignorable谓词：被忽略的码点不推进自动机，用于识别被emoji隔开的敏感词；
+ * 5. 可选的变体表：同音字、形近字等等价字符共享一个符号编号，构建和扫描时都按等价类转移；
+ * 6. 转移表有三种存储方式（Layout），可以按词典规模选择。
+ */
+public class AhoCorasickCodePoint {
+
+    /* 匹配回调，start/end是原文中的UTF-16下标（end不包含），可直接用于substring */
+    public interface MatchHandler {
+        void onMatch(int wordId, int start, int end);
+    }
+
+    /* 常见emoji及其修饰符：表情符号区、杂项符号、零宽连接符、变体选择符、肤色修饰、国旗字母、标签字符 */
+    public static final IntPredicate EMOJI = cp ->
+            (cp >= 0x1F000 && cp <= 0x1FAFF)
+                    || (cp >= 0x2600 && cp <= 0x27BF)
+                    || (cp >= 0x2B00 && cp <= 0x2BFF)
+                    || cp == 0x200D || cp == 0x20E3
+                    || (cp >= 0xFE00 && cp <= 0xFE0F)
+                    || (cp >= 0xE0020 && cp <= 0xE007F);
+
+    /*
+     * 转移表的存储方式：
+     * DENSE   完整的稠密转移表（失败指针已折叠进表内），每个码点一次数组访问，内存为 状态数 * 字母表大小；
+     * HASHED  (状态, 符号) 开放寻址哈希表 + 失败指针，适合字母表较大的中文词典；
+     * COMPACT 每个状态的孩子按符号排序后连续存放（类似双数组），二分查找，根结点单独用稠密数组，内存最小，适合超大词典
+     */
+    public enum Layout { DENSE, HASHED, COMPACT }
+
+    /* 状态数 * 字母表大小 不超过该值时，默认构建稠密转移表，否则使用哈希转移 */
+    public static final long DENSE_LIMIT = 1L << 22;
+
+    /* 强制使用DENSE时允许的最大格子数（int数组约256MB），超过时构建直接报错，不去尝试分配几GB的表 */
+    public static final long DENSE_MAX = 1L << 26;
+
+    /*
+     * 单层状态数少于该值时直接在当前线程处理，避免fork-join的调度开销。
+     * 可以用 -Dac.parallelThreshold 覆盖（每次构建时读取），差分测试设为0以覆盖并行分支
+     */
+    private static final int PARALLEL_THRESHOLD = 1024;
+
+    private static final int ROOT = 0;
+
+    private final CodePointAlphabet alphabet;
+    private final IntPredicate ignorable;
+
+    /* 词编号 -> 敏感词 */
+    private String[] words = new String[16];
+    private int wordCount;
+
+    /* (状态 << 32 | 符号) -> 子状态，即Trie树的边，只有HASHED布局在构建完成后保留 */
+    private LongIntHashMap goTo = new LongIntHashMap(1024);
+
+    /* 以下数组都以状态编号为下标 */
+    private int stateCount = 1;
+    private int[] parent = new int[1024];
+    private int[] inSymbol = new int[1024];
+    private int[] depth = new int[1024];
+    private int[] wordOf = new int[1024];
+    private int[] fail;
+    /* 沿失败指针链向上最近的一个终点状态，没有则为-1 */
+    private int[] outLink;
+
+    private final Layout layout;
+
+    /* DENSE：稠密转移表，delta[state * alphabetSize + symbol] */
+    private int[] delta;
+
+    /* COMPACT：状态s的孩子为 edgeSymbol/edgeTarget[edgeStart[s], edgeStart[s + 1])，按符号升序；rootNext为根结点的稠密转移 */
+    private int[] edgeStart;
+    private int[] edgeSymbol;
+    private int[] edgeTarget;
+    private int[] rootNext;
+    private int alphabetSize;
+    private int maxDepth;
+
+    /* 构建期使用的广度优先顺序 */
+    private int[] order;
+    private int[] levelStart;
+
+    public AhoCorasickCodePoint(List<String> target) {
+        this(target, null, null);
+    }
+
+    /* ignorable为null时不忽略任何码点 */
+    public AhoCorasickCodePoint(List<String> target, IntPredicate ignorable) {
+        this(target, ignorable, null);
+    }
+
+    /* variants为null时不做变体归一；归一后相同的多个词只保留第一个，匹配结果报告该词 */
+    public AhoCorasickCodePoint(List<String> target, IntPredicate ignorable, VariantTable variants) {
+        this(target, ignorable, variants, null);
+    }
+
+    /* layout为null时按 状态数 * 字母表大小 是否超过DENSE_LIMIT 在DENSE和HASHED之间选择 */
+    public AhoCorasickCodePoint(List<String> target, IntPredicate ignorable, VariantTable variants, Layout layout) {
+        this.ignorable = ignorable;
+        this.alphabet = new CodePointAlphabet(variants);
+        wordOf[ROOT] = -1;
+        buildTrieTree(target);
+        if (layout == null) {
+            layout = (long) stateCount * alphabetSize <= DENSE_LIMIT ? Layout.DENSE : Layout.HASHED;
+        } else if (layout == Layout.DENSE && (long) stateCount * alphabetSize > DENSE_MAX) {
+            throw new IllegalArgumentException("词典过大，无法使用稠密转移表：状态数 " + stateCount + " * 字母表大小 " + alphabetSize
+                    + " 超过上限 " + DENSE_MAX + "，请使用HASHED或COMPACT");
+        }
+        this.layout = layout;
+        buildFailureLinks();
+        switch (layout) {
+            case DENSE -> buildDenseTable();
+            case COMPACT -> buildCompactTable();
+            case HASHED -> { }
+        }
+        // 构建完成后不再需要的临时数组
+        order = null;
+        levelStart = null;
+        parent = null;
+        inSymbol = null;
+        if (layout != Layout.HASHED) {
+            goTo = null;
+        }
+    }
+
+    /* 从文件读取敏感词（每行一个） */
+    public static List<String> readKeywordsFromFile(String filePath) throws IOException {
+        List<String> keywords = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(filePath), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty()) {
+                    keywords.add(line);
+                }
+            }
+        }
+        return keywords;
+    }
+
+    private static long key(int state, int symbol) {
+        return ((long) state << 32) | symbol;
+    }
+
+    /* 构建Trie树，重复的词只保留第一次出现的编号 */
+    private void buildTrieTree(List<String> target) {
+        for (String word : target) {
+            int curr = ROOT;
+            int length = 0;
+            for (int i = 0; i < word.length(); ) {
+                int cp = word.codePointAt(i);
+                i += Character.charCount(cp);
+                if (ignorable != null && ignorable.test(cp)) {
+                    continue;
+                }
+                int symbol = alphabet.intern(cp);
+                int next = goTo.get(key(curr, symbol));
+                if (next < 0) {
+                    next = newState(curr, symbol);
+                    goTo.put(key(curr, symbol), next);
+                }
+                curr = next;
+                length++;
+            }
+            if (length == 0 || wordOf[curr] >= 0) {
+                continue;
+            }
+            if (wordCount == words.length) {
+                words = Arrays.copyOf(words, wordCount * 2);
+            }
+            words[wordCount] = word;
+            wordOf[curr] = wordCount++;
+            maxDepth = Math.max(maxDepth, length);
+        }
+        alphabetSize = alphabet.size();
+    }
+
+    private int newState(int from, int symbol) {
+        if (stateCount == depth.length) {
+            int capacity = stateCount * 2;
+            parent = Arrays.copyOf(parent, capacity);
+            inSymbol = Arrays.copyOf(inSymbol, capacity);
+            depth = Arrays.copyOf(depth, capacity);
+            wordOf = Arrays.copyOf(wordOf, capacity);
+        }
+        int state = stateCount++;
+        parent[state] = from;
+        inSymbol[state] = symbol;
+        depth[state] = depth[from] + 1;
+        wordOf[state] = -1;
+        return state;
+    }
+
+    /* 按深度排序后的状态编号即广度优先顺序，levelStart[d]为第d层在order中的起始下标。
+     * 失败指针只会指向更浅的状态，所以逐层处理即可保证依赖已经算好 */
+    private void sortByDepth() {
+        levelStart = new int[maxDepth + 3];
+        for (int s = 0; s < stateCount; s++) {
+            levelStart[depth[s] + 1]++;
+        }
+        for (int d = 1; d < levelStart.length; d++) {
+            levelStart[d] += levelStart[d - 1];
+        }
+        int[] next = Arrays.copyOf(levelStart, levelStart.length);
+        order = new int[stateCount];
+        for (int s = 0; s < stateCount; s++) {
+            order[next[depth[s]]++] = s;
+        }
+    }
+
+    /* 构建失败指针和输出链接。逐层处理，同一层的状态互不依赖，层内较大时在fork-join线程池中并行计算 */
+    private void buildFailureLinks() {
+        // 公共线程池只有一个并行度（单核）时并行只有调度开销，默认走串行；显式设置的阈值优先
+        int threshold = Integer.getInteger("ac.parallelThreshold",
+                ForkJoinPool.getCommonPoolParallelism() > 1 ? PARALLEL_THRESHOLD : Integer.MAX_VALUE);
+        sortByDepth();
+        fail = new int[stateCount];
+        outLink = new int[stateCount];
+        outLink[ROOT] = -1;
+        for (int d = 1; d <= maxDepth; d++) {
+            int from = levelStart[d];
+            int to = levelStart[d + 1];
+            if (to - from < threshold) {
+                for (int i = from; i < to; i++) {
+                    linkFailure(order[i]);
+                }
+            } else {
+                IntStream.range(from, to).parallel().forEach(i -> linkFailure(order[i]));
+            }
+        }
+    }
+
+    /* 只读取更浅层的fail/outLink和goTo，写入只落在状态s自己的格子上 */
+    private void linkFailure(int s) {
+        int symbol = inSymbol[s];
+        int f = ROOT;
+        if (depth[s] > 1) {
+            int failTo = fail[parent[s]];
+            while (true) {
+                int t = goTo.get(key(failTo, symbol));
+                if (t >= 0) {
+                    f = t;
+                    break;
+                }
+                if (failTo == ROOT) {
+                    break;
+                }
+                failTo = fail[failTo];
+            }
+        }
+        fail[s] = f;
+        outLink[s] = wordOf[f] >= 0 ? f : outLink[f];
+    }
+
+    /* 把失败指针折叠进完整的转移表，扫描时每个码点只需一次数组访问 */
+    private void buildDenseTable() {
+        int width = alphabetSize;
+        delta = new int[stateCount * width];
+        for (int d = 0; d <= maxDepth; d++) {
+            // 第d层的每一行先复制其失败状态的整行，失败状态更浅，整行（含孩子）已经确定
+            for (int i = levelStart[d]; i < levelStart[d + 1]; i++) {
+                int s = order[i];
+                if (s != ROOT) {
+                    System.arraycopy(delta, fail[s] * width, delta, s * width, width);
+                }
+            }
+            // 再用第d+1层结点覆盖其父结点（第d层）对应的格子
+            for (int i = levelStart[d + 1]; i < levelStart[d + 2]; i++) {
+                int c = order[i];
+                delta[parent[c] * width + inSymbol[c]] = c;
+            }
+        }
+    }
+
+    /* 按父结点分桶、桶内按符号排序，得到连续存放的孩子数组 */
+    private void buildCompactTable() {
+        edgeStart = new int[stateCount + 1];
+        for (int c = 1; c < stateCount; c++) {
+            edgeStart[parent[c] + 1]++;
+        }
+        for (int s = 0; s < stateCount; s++) {
+            edgeStart[s + 1] += edgeStart[s];
+        }
+        int edges = stateCount - 1;
+        edgeSymbol = new int[edges];
+        edgeTarget = new int[edges];
+        int[] next = Arrays.copyOf(edgeStart, stateCount);
+        for (int c = 1; c < stateCount; c++) {
+            int slot = next[parent[c]]++;
+            edgeSymbol[slot] = inSymbol[c];
+            edgeTarget[slot] = c;
+        }
+        // 桶内插入排序，多数状态只有一两个孩子
+        for (int s = 0; s < stateCount; s++) {
+            for (int i = edgeStart[s] + 1; i < edgeStart[s + 1]; i++) {
+                int symbol = edgeSymbol[i];
+                int target = edgeTarget[i];
+                int j = i - 1;
+                while (j >= edgeStart[s] && edgeSymbol[j] > symbol) {
+                    edgeSymbol[j + 1] = edgeSymbol[j];
+                    edgeTarget[j + 1] = edgeTarget[j];
+                    j--;
+                }
+                edgeSymbol[j + 1] = symbol;
+                edgeTarget[j + 1] = target;
+            }
+        }
+        rootNext = new int[alphabetSize];
+        Arrays.fill(rootNext, -1);
+        for (int i = edgeStart[ROOT]; i < edgeStart[ROOT + 1]; i++) {
+            rootNext[edgeSymbol[i]] = edgeTarget[i];
+        }
+    }
+
+    /* Trie树上的子状态，不沿失败指针回退，不存在时返回-1 */
+    private int child(int state, int symbol) {
+        switch (layout) {
+            case DENSE: {
+                // 稠密表中已经折叠了失败指针，只有深度恰好加一的目标才是Trie树上的孩子
+                int t = delta[state * alphabetSize + symbol];
+                return depth[t] == depth[state] + 1 ? t : -1;
+            }
+            case COMPACT: {
+                if (state == ROOT) {
+                    return rootNext[symbol];
+                }
+                int lo = edgeStart[state];
+                int hi = edgeStart[state + 1] - 1;
+                while (lo <= hi) {
+                    int mid = (lo + hi) >>> 1;
+                    int midSymbol = edgeSymbol[mid];
+                    if (midSymbol < symbol) {
+                        lo = mid + 1;
+                    } else if (midSymbol > symbol) {
+                        hi = mid - 1;
+                    } else {
+                        return edgeTarget[mid];
+                    }
+                }
+                return -1;
+            }
+            default:
+                return goTo.get(key(state, symbol));
+        }
+    }
+
+    /* 状态转移 */
+    private int step(int state, int symbol) {
+        if (delta != null) {
+            return delta[state * alphabetSize + symbol];
+        }
+        while (true) {
+            int t = child(state, symbol);
+            if (t >= 0) {
+                return t;
+            }
+            if (state == ROOT) {
+                return ROOT;
+            }
+            state = fail[state];
+        }
+    }
+
+    /* 扫描文本，每找到一个敏感词回调一次 */
+    public void scan(CharSequence text, MatchHandler handler) {
+        if (maxDepth == 0) {
+            return;
+        }
+        /* 环形缓冲区记录最近maxDepth个被消费码点的起始下标，用于还原匹配在原文中的起点 */
+        int[] starts = new int[maxDepth];
+        int pos = 0;
+        int state = ROOT;
+        int length = text.length();
+        for (int i = 0; i < length; ) {
+            int cp = Character.codePointAt(text, i);
+            int next = i + Character.charCount(cp);
+            if (ignorable != null && ignorable.test(cp)) {
+                i = next;
+                continue;
+            }
+            starts[pos] = i;
+            int symbol = alphabet.symbolOf(cp);
+            state = symbol < 0 ? ROOT : step(state, symbol);
+            for (int s = wordOf[state] >= 0 ? state : outLink[state]; s > 0; s = outLink[s]) {
+                int start = starts[(pos - depth[s] + 1 + maxDepth) % maxDepth];
+                handler.onMatch(wordOf[s], start, next);
+            }
+            pos = pos + 1 == maxDepth ? 0 : pos + 1;
+            i = next;
+        }
+    }
+
+    /*
+     * 容忍间隔的扫描：相邻两个敏感词字符之间最多允许插入maxGap个任意字符，例如maxGap=1时"新x疆x骚x乱"可以匹配"新疆骚乱"。
+     * 每个起点对应一个沿Trie树前进的线程。每读入一个字符，线程可以推进（间隔计数清零），也可以把它当作插入字符跳过
+     * （间隔计数加1，超过maxGap则该分支结束）。两个分支都要保留：推进后可能走向更长的词，而跳过的分支可能匹配更短的词，
+     * 例如词典为["骚乱","骚扰乱"]时，"骚扰乱"中的"扰"既要推进"骚扰乱"，也要作为"骚乱"的插入字符被跳过。
+     * 状态和已用间隔都相同的线程后续行为完全一样，只保留起点最靠后的一个（跨度最短），因此每个词在每个终点上报告一次，
+     * 起点为所有合法匹配中最靠后的。活跃线程数不超过 状态数 * (maxGap + 1)，且起点都在最近 maxDepth * (maxGap + 1) 个码点内。
+     * 回调的start/end是匹配在原文中的实际跨度（包含插入的字符）。被ignorable忽略的码点不计入间隔。
+     */
+    public void scanWithGaps(CharSequence text, int maxGap, MatchHandler handler) {
+        if (maxGap < 0) {
+            throw new IllegalArgumentException("maxGap不能为负数: " + maxGap);
+        }
+        if (maxDepth == 0) {
+            return;
+        }
+        int capacity = maxDepth * (maxGap + 1) + 1;
+        ActiveSet curr = new ActiveSet(capacity);
+        ActiveSet next = new ActiveSet(capacity);
+        int length = text.length();
+        for (int i = 0; i < length; ) {
+            int cp = Character.codePointAt(text, i);
+            int end = i + Character.charCount(cp);
+            if (ignorable != null && ignorable.test(cp)) {
+                i = end;
+                continue;
+            }
+            int symbol = alphabet.symbolOf(cp);
+            next.clear();
+            for (int k = 0; k < curr.size; k++) {
+                int t = symbol < 0 ? -1 : child(curr.state[k], symbol);
+                if (t >= 0) {
+                    next.offer(t, curr.start[k], 0);
+                }
+                if (curr.gap[k] < maxGap) {
+                    next.offer(curr.state[k], curr.start[k], curr.gap[k] + 1);
+                }
+            }
+            /* 以当前码点为起点的新线程 */
+            int t = symbol < 0 ? -1 : child(ROOT, symbol);
+            if (t >= 0) {
+                next.offer(t, i, 0);
+            }
+            /* 刚推进过的线程（gap == 0）如果落在终点上就是一次匹配 */
+            for (int k = 0; k < next.size; k++) {
+                if (next.gap[k] == 0 && wordOf[next.state[k]] >= 0) {
+                    handler.onMatch(wordOf[next.state[k]], next.start[k], end);
+                }
+            }
+            ActiveSet swap = curr;
+            curr = next;
+            next = swap;
+            i = end;
+        }
+    }
+
+    /* 容忍间隔的查找，key为敏感词，value为匹配起点（UTF-16下标），完整跨度见scanWithGaps */
+    public Map<String, List<Integer>> findWithGaps(String text, int maxGap) {
+        Map<String, List<Integer>> result = new HashMap<>();
+        scanWithGaps(text, maxGap, (wordId, start, end) ->
+                result.computeIfAbsent(words[wordId], k -> new ArrayList<>()).add(start));
+        return result;
+    }
+
+    /*
+     * 间隔扫描的活跃线程集合，(状态, 已用间隔) 相同的线程只保留起点最靠后的一个。用小型开放寻址表按 (状态, 间隔) 去重。
+     * 初始容量按单个起点的线程数估计，满了就扩容，不会丢弃线程
+     */
+    private static final class ActiveSet {
+        int[] state;
+        int[] start;
+        int[] gap;
+        int size;
+
+        /* (状态, 间隔) -> 在上面数组中的下标，slots中保存的是 下标 + 1，0表示空槽 */
+        private int[] slots;
+        private int[] slotOf;
+        private int mask;
+
+        ActiveSet(int capacity) {
+            allocate(capacity);
+        }
+
+        private void allocate(int capacity) {
+            state = new int[capacity];
+            start = new int[capacity];
+            gap = new int[capacity];
+            slotOf = new int[capacity];
+            int tableSize = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1;
+            slots = new int[tableSize];
+            mask = tableSize - 1;
+        }
+
+        void clear() {
+            for (int k = 0; k < size; k++) {
+                slots[slotOf[k]] = 0;
+            }
+            size = 0;
+        }
+
+        void offer(int s, int startPos, int usedGap) {
+            int h = (s * 31 + usedGap) * 0x9E3779B9;
+            int i = (h ^ h >>> 16) & mask;
+            while (slots[i] != 0) {
+                int k = slots[i] - 1;
+                if (state[k] == s && gap[k] == usedGap) {
+                    if (startPos > start[k]) {
+                        start[k] = startPos;
+                    }
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            if (size == state.length) {
+                grow();
+                offer(s, startPos, usedGap);
+                return;
+            }
+            state[size] = s;
+            start[size] = startPos;
+            gap[size] = usedGap;
+            slotOf[size] = i;
+            slots[i] = ++size;
+        }
+
+        private void grow() {
+            int[] oldState = state;
+            int[] oldStart = start;
+            int[] oldGap = gap;
+            int oldSize = size;
+            allocate(oldSize * 2);
+            size = 0;
+            for (int k = 0; k < oldSize; k++) {
+                offer(oldState[k], oldStart[k], oldGap[k]);
+            }
+        }
+    }
+
+    /* 文本中是否包含任意敏感词，找到第一个即返回 */
+    public boolean containsAny(CharSequence text) {
+        if (maxDepth == 0) {
+            return false;
+        }
+        int state = ROOT;
+        int length = text.length();
+        for (int i = 0; i < length; ) {
+            int cp = Character.codePointAt(text, i);
+            i += Character.charCount(cp);
+            if (ignorable != null && ignorable.test(cp)) {
+                continue;
+            }
+            int symbol = alphabet.symbolOf(cp);
+            state = symbol < 0 ? ROOT : step(state, symbol);
+            if (wordOf[state] >= 0 || outLink[state] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /* 把匹配到的敏感词替换为mask字符，每个码点替换为一个mask字符，被忽略的码点（如emoji）原样保留 */
+    public String mask(String text, char mask) {
+        return mask(text, mask, null);
+    }
+
+    /* 同上，handler不为null时每个匹配额外回调一次 */
+    public String mask(String text, char mask, MatchHandler handler) {
+        boolean[] covered = new boolean[text.length()];
+        boolean[] found = new boolean[1];
+        scan(text, (wordId, start, end) -> {
+            Arrays.fill(covered, start, end, true);
+            found[0] = true;
+            if (handler != null) {
+                handler.onMatch(wordId, start, end);
+            }
+        });
+        if (!found[0]) {
+            return text;
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); ) {
+            int cp = text.codePointAt(i);
+            int next = i + Character.charCount(cp);
+            if (covered[i] && (ignorable == null || !ignorable.test(cp))) {
+                sb.append(mask);
+            } else {
+                sb.appendCodePoint(cp);
+            }
+            i = next;
+        }
+        return sb.toString();
+    }
+
+    /* 在文本中查找所有敏感词，key为敏感词，value为出现位置（UTF-16下标） */
+    public Map<String, List<Integer>> find(String text) {
+        Map<String, List<Integer>> result = new HashMap<>();
+        scan(text, (wordId, start, end) ->
+                result.computeIfAbsent(words[wordId], k -> new ArrayList<>()).add(start));
+        return result;
+    }
+
+    /* 词编号对应的敏感词 */
+    public String word(int wordId) {
+        return words[wordId];
+    }
+
+    /* 词典中不重复的敏感词数量 */
+    public int size() {
+        return wordCount;
+    }
+
+    /* 自动机状态数 */
+    public int stateCount() {
+        return stateCount;
+    }
+
+    /* 实际使用的转移表存储方式 */
+    public Layout layout() {
+        return layout;
+    }
+
+    /* 词典用到的不同码点数，即转移表宽度 */
+    public int alphabetSize() {
+        return alphabetSize;
+    }
+
+    public static void main(String[] args) {
+        List<String> targets = new ArrayList<>();
+        targets.add("新疆骚乱");
+        targets.add("骚乱");
+        targets.add("𠮷野家");
+        targets.add("abc");
+
+        String text = "新疆😀骚乱，来𠮷野家吃饭，新🔥疆骚🙈乱，ab👍c";
+
+        VariantTable variants = new VariantTable()
+                .addClass("骚搔瘙s")
+                .addClass("乱乿l");
+        AhoCorasickCodePoint ac = new AhoCorasickCodePoint(targets, EMOJI, variants);
+        System.out.println("文本：" + text);
+        System.out.printf("词数：%d，状态数：%d，字母表大小：%d%n", ac.size(), ac.stateCount(), ac.alphabetSize());
+        ac.scan(text, (wordId, start, end) ->
+                System.out.printf("敏感词 [%s] 位置：%d-%d (%s)%n", ac.word(wordId), start, end, text.substring(start, end)));
+
+        for (Entry<String, List<Integer>> entry : ac.find(text).entrySet()) {
+            System.out.println(entry.getKey() + " : " + entry.getValue());
+        }
+
+        String gapText = "新x疆x骚x乱，搔 l，a--b--c";
+        System.out.println("间隔文本：" + gapText);
+        ac.scanWithGaps(gapText, 2, (wordId, start, end) ->
+                System.out.printf("敏感词 [%s] 位置：%d-%d (%s)%n", ac.word(wordId), start, end, gapText.substring(start, end)));
+    }
+}
@@ -0,0 +1,56 @@
+package algorithm.ac;
+
+import java.util.Arrays;
+
+/* 码点 -> 稠密符号编号 的映射。只有在敏感词中出现过的码点才会分配编号，编号从0开始连续分配，
+ * 因此转移表的宽度等于词典实际用到的字符数，而不是整个Unicode范围。
+ * 指定了变体表时，同一等价类的所有码点共享一个编号 */
+final class CodePointAlphabet {
+
+    private static final int ASCII = 128;
+
+    /* ASCII字符直接查数组，其余码点查哈希表 */
+    private final int[] ascii = new int[ASCII];
+    private final IntIntHashMap others = new IntIntHashMap(256);
+    private final VariantTable variants;
+    private int size;
+
+    CodePointAlphabet(VariantTable variants) {
+        this.variants = variants;
+        Arrays.fill(ascii, -1);
+    }
+
+    /* 返回码点对应的符号编号，不存在时分配一个新编号 */
+    int intern(int codePoint) {
+        int id = symbolOf(codePoint);
+        if (id < 0) {
+            id = size++;
+            int[] members = variants == null ? null : variants.members(codePoint);
+            if (members == null) {
+                assign(codePoint, id);
+            } else {
+                for (int member : members) {
+                    assign(member, id);
+                }
+            }
+        }
+        return id;
+    }
+
+    private void assign(int codePoint, int id) {
+        if (codePoint < ASCII) {
+            ascii[codePoint] = id;
+        } else {
+            others.put(codePoint, id);
+        }
+    }
+
+    /* 返回码点对应的符号编号，码点不在字母表中时返回-1 */
+    int symbolOf(int codePoint) {
+        return codePoint < ASCII ? ascii[codePoint] : others.get(codePoint);
+    }
+
+    int size() {
+        return size;
+    }
+}
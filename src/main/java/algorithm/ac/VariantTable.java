@@ -0,0 +1,86 @@
+package algorithm.ac;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * 变体字符表：同音字、形近字、拼音首字母等可以互相替换的字符组成一个等价类。
+ * 构建自动机时同一等价类的所有码点映射到同一个符号编号，一条转移即可覆盖整个等价类，
+ * 敏感词表中只需要保留一种写法，状态数不会随变体数量增长。
+ *
+ * 文件格式：每行一个等价类，行内所有非空白码点互相等价，'#'开头的行为注释。
+ * 一个码点只能属于一个等价类，出现在多行时抛出IllegalArgumentException并指出行号。不做传递合并：
+ * 拼音首字母对应大量互不相关的汉字，如果"骚 搔 s"和"色 s"合并，骚和色就会互相匹配，整个词典都会误报。
+ * 因此一个首字母只能写在一行中，归到最需要防绕过的那一组字里。
+ */
+public class VariantTable {
+
+    /* 码点 -> 等价类下标 */
+    private final IntIntHashMap classOf = new IntIntHashMap(256);
+    /* 等价类下标 -> 成员码点 */
+    private final List<int[]> classes = new ArrayList<>();
+
+    public static VariantTable fromFile(String filePath) throws IOException {
+        VariantTable table = new VariantTable();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(filePath), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    table.addClass(line);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(filePath + " 第" + lineNumber + "行：" + e.getMessage(), e);
+                }
+            }
+        }
+        return table;
+    }
+
+    /* 把chars中所有非空白码点加入同一个等价类，其中有码点已属于其他等价类时抛出IllegalArgumentException */
+    public VariantTable addClass(String chars) {
+        int[] codePoints = chars.codePoints().filter(cp -> !Character.isWhitespace(cp)).distinct().toArray();
+        if (codePoints.length < 2) {
+            return this;
+        }
+        for (int cp : codePoints) {
+            int old = classOf.get(cp);
+            if (old >= 0) {
+                StringBuilder existing = new StringBuilder();
+                for (int member : classes.get(old)) {
+                    existing.appendCodePoint(member);
+                }
+                throw new IllegalArgumentException("字符 '" + new String(Character.toChars(cp)) + "' 已属于等价类 \""
+                        + existing + "\"，一个字符只能属于一个等价类：" + chars);
+            }
+        }
+        int index = classes.size();
+        classes.add(codePoints);
+        for (int cp : codePoints) {
+            classOf.put(cp, index);
+        }
+        return this;
+    }
+
+    /* 返回与codePoint等价的全部码点（包含自身），没有变体时返回null */
+    int[] members(int codePoint) {
+        int index = classOf.get(codePoint);
+        return index < 0 ? null : classes.get(index);
+    }
+
+    /* 有变体的码点数量 */
+    public int size() {
+        return classOf.size();
+    }
+}
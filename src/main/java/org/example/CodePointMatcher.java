@@ -0,0 +1,101 @@
+package org.example;
+
+import algorithm.ac.AhoCorasickCodePoint;
+import org.example.stats.HeavyHitterTracker;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/* SensitiveWordMatcher的实现，三种引擎都是AhoCorasickCodePoint的不同转移表布局 */
+final class CodePointMatcher implements SensitiveWordMatcher {
+
+    private final AhoCorasickCodePoint ac;
+    private final Engine engine;
+    private final DictionaryProfile profile;
+    private final HeavyHitterTracker hitTracker;
+
+    CodePointMatcher(AhoCorasickCodePoint ac, Engine engine, DictionaryProfile profile, HeavyHitterTracker hitTracker) {
+        this.ac = ac;
+        this.engine = engine;
+        this.profile = profile;
+        this.hitTracker = hitTracker;
+    }
+
+    /* 有命中统计时在回调前先记录一次命中 */
+    private AhoCorasickCodePoint.MatchHandler track(MatchHandler handler) {
+        if (hitTracker == null) {
+            return handler::onMatch;
+        }
+        return (wordId, start, end) -> {
+            hitTracker.record(wordId);
+            handler.onMatch(wordId, start, end);
+        };
+    }
+
+    @Override
+    public void scan(CharSequence text, MatchHandler handler) {
+        ac.scan(text, track(handler));
+    }
+
+    @Override
+    public void scanWithGaps(CharSequence text, int maxGap, MatchHandler handler) {
+        ac.scanWithGaps(text, maxGap, track(handler));
+    }
+
+    @Override
+    public Map<String, List<Integer>> find(String text) {
+        if (hitTracker == null) {
+            return ac.find(text);
+        }
+        Map<String, List<Integer>> result = new HashMap<>();
+        scan(text, (wordId, start, end) ->
+                result.computeIfAbsent(ac.word(wordId), k -> new ArrayList<>()).add(start));
+        return result;
+    }
+
+    @Override
+    public boolean containsAny(CharSequence text) {
+        return ac.containsAny(text);
+    }
+
+    @Override
+    public String mask(String text, char mask) {
+        if (hitTracker == null) {
+            return ac.mask(text, mask);
+        }
+        return ac.mask(text, mask, (wordId, start, end) -> hitTracker.record(wordId));
+    }
+
+    @Override
+    public String word(int wordId) {
+        return ac.word(wordId);
+    }
+
+    @Override
+    public int size() {
+        return ac.size();
+    }
+
+    @Override
+    public Engine engine() {
+        return engine;
+    }
+
+    @Override
+    public DictionaryProfile profile() {
+        return profile;
+    }
+
+    @Override
+    public HeavyHitterTracker hitTracker() {
+        return hitTracker;
+    }
+
+    @Override
+    public String toString() {
+        return "SensitiveWordMatcher{engine=" + engine + ", words=" + ac.size()
+                + ", states=" + ac.stateCount() + ", alphabet=" + ac.alphabetSize() + "}";
+    }
+}
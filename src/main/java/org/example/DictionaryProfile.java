@@ -0,0 +1,89 @@
+package org.example;
+
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/* 词典特征：词数、不同码点数、最大词长、码点总数、是否纯ASCII、含CJK字符的词数。重复的词只统计一次 */
+public final class DictionaryProfile {
+
+    private final int words;
+    private final int alphabetSize;
+    private final int maxLength;
+    private final long totalCodePoints;
+    private final boolean asciiOnly;
+    private final int cjkWords;
+
+    private DictionaryProfile(int words, int alphabetSize, int maxLength, long totalCodePoints,
+                              boolean asciiOnly, int cjkWords) {
+        this.words = words;
+        this.alphabetSize = alphabetSize;
+        this.maxLength = maxLength;
+        this.totalCodePoints = totalCodePoints;
+        this.asciiOnly = asciiOnly;
+        this.cjkWords = cjkWords;
+    }
+
+    static DictionaryProfile of(List<String> words) {
+        Set<String> keywords = new LinkedHashSet<>(words);
+        BitSet alphabet = new BitSet();
+        int maxLength = 0;
+        long total = 0;
+        boolean asciiOnly = true;
+        int cjkWords = 0;
+        for (String word : keywords) {
+            int length = 0;
+            boolean cjk = false;
+            for (int i = 0; i < word.length(); ) {
+                int cp = word.codePointAt(i);
+                i += Character.charCount(cp);
+                alphabet.set(cp);
+                length++;
+                if (cp >= 128) {
+                    asciiOnly = false;
+                }
+                if (Character.UnicodeScript.of(cp) == Character.UnicodeScript.HAN) {
+                    cjk = true;
+                }
+            }
+            maxLength = Math.max(maxLength, length);
+            total += length;
+            if (cjk) {
+                cjkWords++;
+            }
+        }
+        return new DictionaryProfile(keywords.size(), alphabet.cardinality(), maxLength, total, asciiOnly, cjkWords);
+    }
+
+    /* 不重复的词数 */
+    public int words() {
+        return words;
+    }
+
+    public int alphabetSize() {
+        return alphabetSize;
+    }
+
+    public int maxLength() {
+        return maxLength;
+    }
+
+    public long totalCodePoints() {
+        return totalCodePoints;
+    }
+
+    public boolean asciiOnly() {
+        return asciiOnly;
+    }
+
+    public int cjkWords() {
+        return cjkWords;
+    }
+
+    @Override
+    public String toString() {
+        return "DictionaryProfile{words=" + words + ", alphabetSize=" + alphabetSize + ", maxLength=" + maxLength
+                + ", totalCodePoints=" + totalCodePoints + ", asciiOnly=" + asciiOnly + ", cjkWords=" + cjkWords + "}";
+    }
+}
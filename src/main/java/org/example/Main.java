@@ -1,7 +1,28 @@
 package org.example;
 
+import algorithm.ac.AhoCorasickCodePoint;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
 public class Main {
-    public static void main(String[] args) {
-        System.out.println("Hello world!");
+    public static void main(String[] args) throws IOException {
+        String keywordsFile = args.length > 0 ? args[0] : "src/test/java/data/sensitive_words_10000.txt";
+        String text = args.length > 1 ? args[1] : "新疆骚乱，苹果发布会停止了吗，饭菜涨价了吗";
+
+        long start = System.nanoTime();
+        SensitiveWordMatcher matcher = SensitiveWordMatcher.builder()
+                .wordsFromFile(keywordsFile)
+                .ignorable(AhoCorasickCodePoint.EMOJI)
+                .build();
+        System.out.println(matcher.profile());
+        System.out.printf("选中引擎：%s，构建耗时：%dms%n", matcher.engine(), (System.nanoTime() - start) / 1_000_000);
+
+        System.out.println("测试文本：" + text);
+        for (Map.Entry<String, List<Integer>> entry : matcher.find(text).entrySet()) {
+            System.out.println(entry.getKey() + " : " + entry.getValue());
+        }
+        System.out.println("屏蔽后：" + matcher.mask(text, '*'));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,145 @@
+package org.example;
+
+import algorithm.ac.AhoCorasickCodePoint;
+import algorithm.ac.VariantTable;
+import org.example.stats.HeavyHitterTracker;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/*
+ * 敏感词匹配的统一入口。通过builder()构建，构建时分析词典特征（词数、字母表大小、最大词长、是否纯ASCII）
+ * 自动选择最合适的引擎，调用方不需要为每个部署手动挑选实现类；engine()可以查看实际选中的引擎。
+ */
+public interface SensitiveWordMatcher {
+
+    /*
+     * 可选的引擎：
+     * DENSE_ARRAY    稠密转移表，每个字符一次数组访问，适合纯ASCII或字母表很小的词典；
+     * HASHED_MAP     基本类型哈希表保存转移 + 失败指针，适合字母表较大的中文词典；
+     * LARGE_COMPACT  孩子按符号排序连续存放的紧凑布局，内存最小，适合10万词以上的大词典
+     */
+    enum Engine {
+        DENSE_ARRAY(AhoCorasickCodePoint.Layout.DENSE),
+        HASHED_MAP(AhoCorasickCodePoint.Layout.HASHED),
+        LARGE_COMPACT(AhoCorasickCodePoint.Layout.COMPACT);
+
+        final AhoCorasickCodePoint.Layout layout;
+
+        Engine(AhoCorasickCodePoint.Layout layout) {
+            this.layout = layout;
+        }
+    }
+
+    /* 匹配回调，start/end是原文中的UTF-16下标（end不包含） */
+    interface MatchHandler {
+        void onMatch(int wordId, int start, int end);
+    }
+
+    /* 扫描文本，每找到一个敏感词回调一次 */
+    void scan(CharSequence text, MatchHandler handler);
+
+    /* 容忍间隔的扫描，相邻两个敏感词字符之间最多允许maxGap个任意字符 */
+    void scanWithGaps(CharSequence text, int maxGap, MatchHandler handler);
+
+    /* 查找所有敏感词，key为敏感词，value为出现位置（UTF-16下标） */
+    Map<String, List<Integer>> find(String text);
+
+    /* 是否包含任意敏感词 */
+    boolean containsAny(CharSequence text);
+
+    /* 把敏感词替换为mask字符 */
+    String mask(String text, char mask);
+
+    /* 词编号对应的敏感词 */
+    String word(int wordId);
+
+    /* 不重复的敏感词数量 */
+    int size();
+
+    /* 实际选中的引擎 */
+    Engine engine();
+
+    /* 构建时分析得到的词典特征 */
+    DictionaryProfile profile();
+
+    /* 构建时指定的命中统计，没有指定时为null */
+    HeavyHitterTracker hitTracker();
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    final class Builder {
+
+        /* 不重复的词数达到该值时使用LARGE_COMPACT */
+        static final int LARGE_DICTIONARY = 100_000;
+        /* 纯ASCII词典的字母表不超过128，稠密表可以放宽到 2^24 个格子（64MB） */
+        static final long ASCII_DENSE_LIMIT = 1L << 24;
+
+        private final List<String> words = new ArrayList<>();
+        private IntPredicate ignorable;
+        private VariantTable variants;
+        private Engine engine;
+        private HeavyHitterTracker hitTracker;
+
+        private Builder() {
+        }
+
+        public Builder words(Collection<String> words) {
+            this.words.addAll(words);
+            return this;
+        }
+
+        /* 从文件读取敏感词（每行一个） */
+        public Builder wordsFromFile(String filePath) throws IOException {
+            this.words.addAll(AhoCorasickCodePoint.readKeywordsFromFile(filePath));
+            return this;
+        }
+
+        /* 被忽略的码点，例如AhoCorasickCodePoint.EMOJI */
+        public Builder ignorable(IntPredicate ignorable) {
+            this.ignorable = ignorable;
+            return this;
+        }
+
+        /* 变体字符表 */
+        public Builder variants(VariantTable variants) {
+            this.variants = variants;
+            return this;
+        }
+
+        /* 强制使用指定引擎，不做自动选择；DENSE_ARRAY的转移表超过AhoCorasickCodePoint.DENSE_MAX时build()抛出IllegalArgumentException */
+        public Builder engine(Engine engine) {
+            this.engine = engine;
+            return this;
+        }
+
+        /* 每次命中都记录到tracker中（scan、scanWithGaps、find、mask），词编号只在本匹配器内有效 */
+        public Builder hitTracker(HeavyHitterTracker hitTracker) {
+            this.hitTracker = hitTracker;
+            return this;
+        }
+
+        public SensitiveWordMatcher build() {
+            DictionaryProfile profile = DictionaryProfile.of(words);
+            Engine chosen = engine != null ? engine : choose(profile);
+            AhoCorasickCodePoint ac = new AhoCorasickCodePoint(words, ignorable, variants, chosen.layout);
+            return new CodePointMatcher(ac, chosen, profile, hitTracker);
+        }
+
+        /* 按词典特征选择引擎。状态数的上界为所有词的码点总数 */
+        static Engine choose(DictionaryProfile profile) {
+            if (profile.words() >= LARGE_DICTIONARY) {
+                return Engine.LARGE_COMPACT;
+            }
+            long cells = profile.totalCodePoints() * (long) profile.alphabetSize();
+            long limit = profile.asciiOnly() ? ASCII_DENSE_LIMIT : AhoCorasickCodePoint.DENSE_LIMIT;
+            return cells <= limit ? Engine.DENSE_ARRAY : Engine.HASHED_MAP;
+        }
+    }
+}
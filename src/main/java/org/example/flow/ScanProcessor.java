@@ -0,0 +1,473 @@
+package org.example.flow;
+
+import algorithm.ac.AhoCorasickCodePoint;
+import org.example.SensitiveWordMatcher;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * 基于java.util.concurrent.Flow的扫描阶段：订阅消息发布者，用workers个线程并行扫描，把ScanVerdict发给下游。
+ *
+ * 背压：向上游最多预取bufferSize条消息，每向下游发出一条结论才再向上游请求一条，因此在途消息（已收到未发出）
+ * 不超过bufferSize；向下游发送使用SubmissionPublisher，下游缓冲区满时发送会阻塞工作线程，上游随之停止请求。
+ * 所有缓冲区都有上界，洪峰时不会无限堆积，也不会让上游消费线程因同步扫描而卡住。
+ *
+ * ordered为true时按上游顺序发出结论（乱序完成的结论在大小为bufferSize的环形数组中等待），否则谁先扫完谁先发。
+ * 每个工作线程有自己的MatchBuffer，扫描时复用，不为每条匹配分配对象。
+ *
+ * 生命周期：上游和至少一个下游订阅者都就绪后才创建工作线程并开始请求；所有下游订阅者都取消后取消上游、停止工作线程，
+ * 不会在没有人接收的情况下继续拉取和扫描。
+ *
+ * 多个工作线程都会向上游补充请求，规范§2.7要求对同一订阅的request/cancel串行调用：请求数先累加到pendingRequests，
+ * 再由drainUpstream发出，同一时刻只有一个线程在调用上游订阅，其余线程只登记后离开，不会阻塞。
+ */
+public class ScanProcessor extends SubmissionPublisher<ScanVerdict> implements Flow.Processor<String, ScanVerdict> {
+
+    /* 一条待扫描的消息 */
+    private static final class Item {
+        final long sequence;
+        final String text;
+
+        Item(long sequence, String text) {
+            this.sequence = sequence;
+            this.text = text;
+        }
+    }
+
+    /* 工作线程的扫描暂存区，int数组按需扩容，跨消息复用 */
+    private static final class MatchBuffer implements SensitiveWordMatcher.MatchHandler {
+        int[] wordIds = new int[16];
+        int[] starts = new int[16];
+        int[] ends = new int[16];
+        int size;
+
+        @Override
+        public void onMatch(int wordId, int start, int end) {
+            if (size == wordIds.length) {
+                wordIds = Arrays.copyOf(wordIds, size * 2);
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            wordIds[size] = wordId;
+            starts[size] = start;
+            ends[size] = end;
+            size++;
+        }
+    }
+
+    private final SensitiveWordMatcher matcher;
+    private final int bufferSize;
+    private final boolean ordered;
+    private final int workerCount;
+    private final ArrayBlockingQueue<Item> inbox;
+
+    /* 保护workers、started的创建和停止，不与SubmissionPublisher内部的锁共用 */
+    private final Object lifecycle = new Object();
+    private ExecutorService workers;
+    private boolean started;
+    private volatile Flow.Subscription upstream;
+    /* 尚未发给上游的请求数和取消标记，由drainUpstream串行发出 */
+    private final AtomicLong pendingRequests = new AtomicLong();
+    private volatile boolean cancelRequested;
+    private final AtomicInteger upstreamWip = new AtomicInteger();
+    /* 只在持有upstreamWip的线程中读写 */
+    private boolean upstreamCancelled;
+    /* 只在onNext中写入（规范保证onNext串行调用），其他线程读取 */
+    private volatile long received;
+    private final AtomicLong emitted = new AtomicLong();
+    private volatile boolean upstreamDone;
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    /* ordered模式下的重排序环形数组，下标为 序号 % bufferSize */
+    private final ScanVerdict[] reorder;
+    private long nextToEmit;
+
+    public ScanProcessor(SensitiveWordMatcher matcher, int workers, int bufferSize, boolean ordered) {
+        super(ForkJoinPool.commonPool(), bufferSize);
+        if (workers <= 0 || bufferSize <= 0) {
+            throw new IllegalArgumentException("workers和bufferSize必须为正数");
+        }
+        this.matcher = matcher;
+        this.bufferSize = bufferSize;
+        this.ordered = ordered;
+        this.workerCount = workers;
+        this.inbox = new ArrayBlockingQueue<>(bufferSize);
+        this.reorder = ordered ? new ScanVerdict[bufferSize] : null;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (upstream != null) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        start();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ScanVerdict> subscriber) {
+        super.subscribe(subscriber);
+        start();
+    }
+
+    /* 没有下游订阅者时SubmissionPublisher会丢弃结论，因此上下游都就绪后才启动工作线程并开始向上游请求 */
+    private void start() {
+        synchronized (lifecycle) {
+            if (started || finished.get() || upstream == null || getNumberOfSubscribers() == 0) {
+                return;
+            }
+            started = true;
+            workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+                Thread thread = new Thread(runnable, "scan-processor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            for (int i = 0; i < workerCount; i++) {
+                workers.execute(this::work);
+            }
+        }
+        requestUpstream(bufferSize);
+    }
+
+    @Override
+    public void onNext(String text) {
+        // 在途消息不会超过bufferSize，队列满说明上游没有遵守request的数量
+        if (!inbox.offer(new Item(received, text))) {
+            cancelUpstream();
+            onError(new IllegalStateException("上游发送的消息超过了请求数量"));
+            return;
+        }
+        received++;
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        if (finished.compareAndSet(false, true)) {
+            stopWorkers();
+            closeExceptionally(throwable);
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        upstreamDone = true;
+        tryFinish();
+    }
+
+    private void work() {
+        MatchBuffer buffer = new MatchBuffer();
+        try {
+            while (true) {
+                Item item = inbox.take();
+                buffer.size = 0;
+                matcher.scan(item.text, buffer);
+                emit(verdict(item, buffer));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            cancelUpstream();
+            onError(e);
+        }
+    }
+
+    private ScanVerdict verdict(Item item, MatchBuffer buffer) {
+        int size = buffer.size;
+        String[] words = new String[size];
+        for (int i = 0; i < size; i++) {
+            words[i] = matcher.word(buffer.wordIds[i]);
+        }
+        return new ScanVerdict(item.sequence, item.text, Arrays.copyOf(buffer.wordIds, size),
+                Arrays.copyOf(buffer.starts, size), Arrays.copyOf(buffer.ends, size), words);
+    }
+
+    /* 发出结论；下游缓冲区满时submit阻塞，形成背压 */
+    private void emit(ScanVerdict verdict) {
+        if (!ordered) {
+            deliver(verdict);
+            return;
+        }
+        synchronized (reorder) {
+            reorder[(int) (verdict.sequence() % bufferSize)] = verdict;
+            while (true) {
+                int slot = (int) (nextToEmit % bufferSize);
+                ScanVerdict next = reorder[slot];
+                if (next == null || next.sequence() != nextToEmit) {
+                    break;
+                }
+                reorder[slot] = null;
+                nextToEmit++;
+                deliver(next);
+            }
+        }
+    }
+
+    private void deliver(ScanVerdict verdict) {
+        if (isClosed()) {
+            return;
+        }
+        if (getNumberOfSubscribers() == 0) {
+            cancel();
+            return;
+        }
+        submit(verdict);
+        emitted.incrementAndGet();
+        if (!upstreamDone) {
+            requestUpstream(1);
+        }
+        tryFinish();
+    }
+
+    /* 上游已完成且所有收到的消息都已发出时关闭下游 */
+    private void tryFinish() {
+        if (upstreamDone && emitted.get() == received && finished.compareAndSet(false, true)) {
+            stopWorkers();
+            close();
+        }
+    }
+
+    /* 下游订阅者全部取消：取消上游，停止工作线程 */
+    private void cancel() {
+        if (finished.compareAndSet(false, true)) {
+            cancelUpstream();
+            stopWorkers();
+            close();
+        }
+    }
+
+    private void requestUpstream(long n) {
+        pendingRequests.addAndGet(n);
+        drainUpstream();
+    }
+
+    private void cancelUpstream() {
+        cancelRequested = true;
+        drainUpstream();
+    }
+
+    /*
+     * 抢到upstreamWip的线程负责调用上游订阅，循环到没有新登记的请求或取消为止；其他线程只把upstreamWip加1，
+     * 由正在调用的线程多循环一次替它发出。取消之后不再请求
+     */
+    private void drainUpstream() {
+        if (upstreamWip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            if (!upstreamCancelled) {
+                if (cancelRequested) {
+                    upstreamCancelled = true;
+                    upstream.cancel();
+                } else {
+                    long n = pendingRequests.getAndSet(0);
+                    if (n > 0) {
+                        upstream.request(n);
+                    }
+                }
+            }
+            missed = upstreamWip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void stopWorkers() {
+        synchronized (lifecycle) {
+            inbox.clear();
+            if (workers != null) {
+                workers.shutdownNow();
+            }
+        }
+    }
+
+    /* 演示用：包装上游订阅，统计request/cancel被并发调用的次数（规范§2.7要求对同一订阅的调用串行） */
+    private static final class SerialCheckingPublisher implements Flow.Publisher<String> {
+        private final Flow.Publisher<String> source;
+        private final AtomicInteger inCall = new AtomicInteger();
+        private final AtomicInteger overlaps = new AtomicInteger();
+        private final AtomicLong calls = new AtomicLong();
+
+        SerialCheckingPublisher(Flow.Publisher<String> source) {
+            this.source = source;
+        }
+
+        private void enter() {
+            calls.incrementAndGet();
+            if (inCall.incrementAndGet() != 1) {
+                overlaps.incrementAndGet();
+            }
+            // 让出CPU，放大并发调用的窗口
+            Thread.yield();
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super String> subscriber) {
+            source.subscribe(new Flow.Subscriber<String>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscriber.onSubscribe(new Flow.Subscription() {
+                        @Override
+                        public void request(long n) {
+                            enter();
+                            try {
+                                subscription.request(n);
+                            } finally {
+                                inCall.decrementAndGet();
+                            }
+                        }
+
+                        @Override
+                        public void cancel() {
+                            enter();
+                            try {
+                                subscription.cancel();
+                            } finally {
+                                inCall.decrementAndGet();
+                            }
+                        }
+                    });
+                }
+
+                @Override
+                public void onNext(String item) {
+                    subscriber.onNext(item);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    subscriber.onError(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    subscriber.onComplete();
+                }
+            });
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        SensitiveWordMatcher matcher = SensitiveWordMatcher.builder()
+                .words(List.of("新疆骚乱", "骚乱", "涨价"))
+                .ignorable(AhoCorasickCodePoint.EMOJI)
+                .build();
+
+        SubmissionPublisher<String> source = new SubmissionPublisher<>(ForkJoinPool.commonPool(), 8);
+        ScanProcessor processor = new ScanProcessor(matcher, 4, 8, true);
+        source.subscribe(processor);
+
+        CountDownLatch done = new CountDownLatch(1);
+        processor.subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+            private long expected;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(ScanVerdict verdict) {
+                if (verdict.sequence() != expected++) {
+                    throw new IllegalStateException("结论乱序：" + verdict.sequence());
+                }
+                if (verdict.sensitive()) {
+                    System.out.println(verdict);
+                }
+                // 慢速下游：一次只请求一条
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                throwable.printStackTrace();
+                done.countDown();
+            }
+
+            @Override
+            public void onComplete() {
+                System.out.println("完成，共" + expected + "条");
+                done.countDown();
+            }
+        });
+
+        String[] messages = {"新疆骚乱", "今天天气不错", "饭菜涨价了吗", "骚🙈乱"};
+        long start = System.nanoTime();
+        for (int i = 0; i < 10_000; i++) {
+            // 下游处理不过来时submit会阻塞，上游不会无限堆积
+            source.submit(messages[i % messages.length] + i);
+        }
+        source.close();
+        done.await();
+        System.out.printf("耗时：%dms%n", (System.nanoTime() - start) / 1_000_000);
+
+        // 下游收到100条后取消订阅，处理器应取消上游，不再继续拉取
+        SubmissionPublisher<String> endless = new SubmissionPublisher<>(ForkJoinPool.commonPool(), 8);
+        ScanProcessor cancelling = new ScanProcessor(matcher, 4, 8, false);
+        endless.subscribe(cancelling);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        cancelling.subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+            private int count;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ScanVerdict verdict) {
+                if (++count == 100) {
+                    subscription.cancel();
+                    cancelled.countDown();
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                throwable.printStackTrace();
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        for (int i = 0; endless.hasSubscribers() && i < 1_000_000; i++) {
+            endless.submit(messages[i % messages.length] + i);
+        }
+        cancelled.await();
+        System.out.printf("取消后上游订阅者：%d，处理器共收到：%d条%n", endless.getNumberOfSubscribers(), cancelling.received);
+        endless.close();
+
+        // 乱序模式下4个工作线程各自发出结论后向上游补充请求，对上游订阅的调用不能重叠
+        SubmissionPublisher<String> concurrentSource = new SubmissionPublisher<>(ForkJoinPool.commonPool(), 8);
+        SerialCheckingPublisher checked = new SerialCheckingPublisher(concurrentSource);
+        ScanProcessor unordered = new ScanProcessor(matcher, 4, 8, false);
+        checked.subscribe(unordered);
+        CountDownLatch drained = new CountDownLatch(1);
+        unordered.consume(verdict -> {
+        }).whenComplete((ignored, throwable) -> drained.countDown());
+        for (int i = 0; i < 20_000; i++) {
+            concurrentSource.submit(messages[i % messages.length] + i);
+        }
+        concurrentSource.close();
+        drained.await();
+        System.out.printf("上游request/cancel调用：%d次，重叠：%d次%n", checked.calls.get(), checked.overlaps.get());
+        if (checked.overlaps.get() != 0) {
+            throw new IllegalStateException("对上游订阅的调用发生重叠");
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.flow;
+
+/* 一条消息的扫描结论。匹配按出现顺序存放在基本类型数组中，start/end为原文中的UTF-16下标 */
+public final class ScanVerdict {
+
+    private final long sequence;
+    private final String text;
+    private final int[] wordIds;
+    private final int[] starts;
+    private final int[] ends;
+    private final String[] words;
+
+    ScanVerdict(long sequence, String text, int[] wordIds, int[] starts, int[] ends, String[] words) {
+        this.sequence = sequence;
+        this.text = text;
+        this.wordIds = wordIds;
+        this.starts = starts;
+        this.ends = ends;
+        this.words = words;
+    }
+
+    /* 消息在上游中的序号，从0开始 */
+    public long sequence() {
+        return sequence;
+    }
+
+    public String text() {
+        return text;
+    }
+
+    /* 是否命中任意敏感词 */
+    public boolean sensitive() {
+        return wordIds.length > 0;
+    }
+
+    public int matches() {
+        return wordIds.length;
+    }
+
+    public int wordId(int i) {
+        return wordIds[i];
+    }
+
+    public String word(int i) {
+        return words[i];
+    }
+
+    public int start(int i) {
+        return starts[i];
+    }
+
+    public int end(int i) {
+        return ends[i];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("ScanVerdict{sequence=").append(sequence).append(", matches=[");
+        for (int i = 0; i < wordIds.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(words[i]).append('@').append(starts[i]).append('-').append(ends[i]);
+        }
+        return sb.append("]}").toString();
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/*
+ * 把并发到达的请求合并成小批次处理。
+ * 每条处理线程（lane）从共享队列取到第一个请求后，在windowNanos时间窗内继续收集，最多收集maxBatch个，
+ * 然后整批交给processor。多条lane并行工作，批次内的请求共享同一个匹配器快照。
+ */
+final class MicroBatcher<T extends MicroBatcher.Task> {
+
+    /* 批次中的一个请求，处理完成后通过future返回结果 */
+    static class Task {
+        final CompletableFuture<String> future = new CompletableFuture<>();
+    }
+
+    private final LinkedBlockingQueue<T> queue;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final Consumer<List<T>> processor;
+    private final Thread[] lanes;
+    private volatile boolean running = true;
+
+    MicroBatcher(int lanes, long windowNanos, int maxBatch, int queueCapacity, Consumer<List<T>> processor) {
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.windowNanos = windowNanos;
+        this.maxBatch = maxBatch;
+        this.processor = processor;
+        this.lanes = new Thread[lanes];
+        for (int i = 0; i < lanes; i++) {
+            this.lanes[i] = Thread.ofPlatform().name("scan-batch-" + i).daemon().start(this::runLane);
+        }
+    }
+
+    /* 提交请求；队列已满或已停止时立即以RejectedExecutionException结束，由调用方返回503 */
+    CompletableFuture<String> submit(T task) {
+        if (!running) {
+            task.future.completeExceptionally(new RejectedExecutionException("服务已停止"));
+        } else if (!queue.offer(task)) {
+            task.future.completeExceptionally(new RejectedExecutionException("扫描队列已满"));
+        }
+        return task.future;
+    }
+
+    private void runLane() {
+        List<T> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                T first = queue.take();
+                batch.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    T next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                processor.accept(batch);
+            } catch (InterruptedException e) {
+                for (T task : batch) {
+                    task.future.completeExceptionally(new RejectedExecutionException("服务已停止"));
+                }
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                for (T task : batch) {
+                    task.future.completeExceptionally(e);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /* 当前排队中的请求数 */
+    int pending() {
+        return queue.size();
+    }
+
+    void shutdown() {
+        running = false;
+        for (Thread lane : lanes) {
+            lane.interrupt();
+        }
+        T task;
+        while ((task = queue.poll()) != null) {
+            task.future.completeExceptionally(new RejectedExecutionException("服务已停止"));
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package org.example.server;
+
+import algorithm.ac.AhoCorasickCodePoint;
+import algorithm.ac.VariantTable;
+import org.example.SensitiveWordMatcher;
+import org.example.stats.HeavyHitterTracker;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * 内嵌的敏感词扫描HTTP服务，所有调用方共享同一个编译好的SensitiveWordMatcher，避免每个JVM各自加载一份10万词的Trie树。
+ * 基于JDK自带的com.sun.net.httpserver，每个连接由虚拟线程处理，实际扫描由MicroBatcher按时间窗合并成小批次执行。
+ *
+ * 接口（请求体均为UTF-8纯文本）：
+ *   POST /scan           返回 {"matches":[{"word":"..","start":0,"end":2}]}，start/end为UTF-16下标
+ *   POST /mask           返回 {"text":"**骚**"}
+ *   POST /containsAny    返回 {"contains":true}
+ *   POST /admin/reload   重新加载词典，请求体为空时使用启动时的词典路径，否则为新的词典路径（必须位于允许的目录内）
+ *   GET  /admin/metrics  返回请求数、拒绝数（503）、出错数（500）、批次数、平均批次大小、扫描耗时、词典规模、选中的引擎等指标
+ *   GET  /admin/hot      返回滑动窗口内命中最多的敏感词 {"hot":[{"word":"..","count":3}]}，重新加载词典后重新统计
+ *
+ * 安全：默认只监听回环地址；管理接口没有鉴权，对外暴露前需要在前面加鉴权代理。
+ * /admin/reload只接受 -Dscan.reloadDir 目录（默认为启动词典所在目录）内的文件，防止把任意本地文件加载成词典后
+ * 通过/scan、/admin/hot读出内容；请求体超过 -Dscan.maxBodyBytes（默认1MB）时返回413。
+ */
+public class ScanServer {
+
+    enum Op { SCAN, MASK, CONTAINS }
+
+    static final class ScanTask extends MicroBatcher.Task {
+        final Op op;
+        final String text;
+
+        ScanTask(Op op, String text) {
+            this.op = op;
+            this.text = text;
+        }
+    }
+
+    private final AtomicReference<SensitiveWordMatcher> matcher = new AtomicReference<>();
+    private final String dictionaryPath;
+    /* 允许重新加载的目录：配置的路径（绝对、规范化）和解析符号链接后的真实路径 */
+    private final Path reloadDir;
+    private final Path reloadDirReal;
+    private final int maxBodyBytes;
+    private final VariantTable variants;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final MicroBatcher<ScanTask> batcher;
+
+    /* 监控指标 */
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedTasks = new LongAdder();
+    private final LongAdder scannedChars = new LongAdder();
+    private final LongAdder scanNanos = new LongAdder();
+    private final LongAdder reloads = new LongAdder();
+    private volatile long lastReloadMillis;
+
+    /* 监听回环地址上的port端口，其余参数见下一个构造方法 */
+    public ScanServer(String dictionaryPath, VariantTable variants, int port,
+                      long batchWindowMicros, int maxBatch) throws IOException {
+        this(dictionaryPath, variants, new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                batchWindowMicros, maxBatch);
+    }
+
+    /*
+     * address为监听地址，端口为0时由系统分配；batchWindowMicros为合并请求的时间窗，maxBatch为单批最大请求数。
+     * 词典在start()中加载
+     */
+    public ScanServer(String dictionaryPath, VariantTable variants, InetSocketAddress address,
+                      long batchWindowMicros, int maxBatch) throws IOException {
+        this.dictionaryPath = dictionaryPath;
+        String dir = System.getProperty("scan.reloadDir");
+        this.reloadDir = (dir != null ? Paths.get(dir) : Paths.get(dictionaryPath).toAbsolutePath().getParent())
+                .toAbsolutePath().normalize();
+        this.reloadDirReal = reloadDir.toRealPath();
+        this.maxBodyBytes = Integer.getInteger("scan.maxBodyBytes", 1 << 20);
+        this.variants = variants;
+        this.batcher = new MicroBatcher<>(Runtime.getRuntime().availableProcessors(),
+                TimeUnit.MICROSECONDS.toNanos(batchWindowMicros), maxBatch, 65536, this::process);
+        this.server = HttpServer.create(address, 0);
+        server.setExecutor(executor);
+    }
+
+    /* 加载词典、注册接口后开始监听 */
+    public void start() throws IOException {
+        reload(dictionaryPath);
+        server.createContext("/scan", exchange -> handleScan(exchange, Op.SCAN));
+        server.createContext("/mask", exchange -> handleScan(exchange, Op.MASK));
+        server.createContext("/containsAny", exchange -> handleScan(exchange, Op.CONTAINS));
+        server.createContext("/admin/reload", this::handleReload);
+        server.createContext("/admin/metrics", this::handleMetrics);
+        server.createContext("/admin/hot", this::handleHot);
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        batcher.shutdown();
+        executor.shutdownNow();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /* 重新加载词典，构建完成后原子替换，正在处理的批次继续使用旧的匹配器 */
+    public synchronized void reload(String path) throws IOException {
+        matcher.set(SensitiveWordMatcher.builder()
+                .wordsFromFile(path)
+                .ignorable(AhoCorasickCodePoint.EMOJI)
+                .variants(variants)
+                .hitTracker(new HeavyHitterTracker(Integer.getInteger("scan.hotTopK", 20),
+                        Long.getLong("scan.hotWindowSeconds", 60), TimeUnit.SECONDS))
+                .build());
+        reloads.increment();
+        lastReloadMillis = System.currentTimeMillis();
+    }
+
+    /* 处理一个批次，整批使用同一个匹配器快照 */
+    private void process(List<ScanTask> batch) {
+        SensitiveWordMatcher ac = matcher.get();
+        long start = System.nanoTime();
+        long chars = 0;
+        for (ScanTask task : batch) {
+            chars += task.text.length();
+            // 单个请求出错只让它自己失败，不影响同批的其他请求
+            try {
+                switch (task.op) {
+                    case SCAN -> task.future.complete(scanJson(ac, task.text));
+                    case MASK -> task.future.complete("{\"text\":" + quote(ac.mask(task.text, '*')) + "}");
+                    case CONTAINS -> task.future.complete("{\"contains\":" + ac.containsAny(task.text) + "}");
+                }
+            } catch (RuntimeException e) {
+                task.future.completeExceptionally(e);
+            }
+        }
+        scanNanos.add(System.nanoTime() - start);
+        scannedChars.add(chars);
+        batches.increment();
+        batchedTasks.add(batch.size());
+    }
+
+    private static String scanJson(SensitiveWordMatcher ac, String text) {
+        StringBuilder sb = new StringBuilder("{\"matches\":[");
+        ac.scan(text, (wordId, start, end) -> {
+            if (sb.charAt(sb.length() - 1) != '[') {
+                sb.append(',');
+            }
+            sb.append("{\"word\":").append(quote(ac.word(wordId)))
+                    .append(",\"start\":").append(start)
+                    .append(",\"end\":").append(end).append('}');
+        });
+        return sb.append("]}").toString();
+    }
+
+    private void handleScan(HttpExchange exchange, Op op) throws IOException {
+        requests.increment();
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, "{\"error\":\"只支持POST\"}");
+            return;
+        }
+        String text = readBody(exchange);
+        if (text == null) {
+            respond(exchange, 413, "{\"error\":\"请求体过大\"}");
+            return;
+        }
+        String body;
+        try {
+            body = batcher.submit(new ScanTask(op, text)).join();
+        } catch (CompletionException e) {
+            // 只有排队被拒绝才是过载（503），其他异常是处理出错（500），分开计数
+            if (e.getCause() instanceof RejectedExecutionException) {
+                rejected.increment();
+                respond(exchange, 503, "{\"error\":" + quote(String.valueOf(e.getCause().getMessage())) + "}");
+            } else {
+                errors.increment();
+                respond(exchange, 500, "{\"error\":" + quote("扫描失败: " + e.getCause()) + "}");
+            }
+            return;
+        }
+        respond(exchange, 200, body);
+    }
+
+    private void handleReload(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, "{\"error\":\"只支持POST\"}");
+            return;
+        }
+        String body = readBody(exchange);
+        if (body == null) {
+            respond(exchange, 413, "{\"error\":\"请求体过大\"}");
+            return;
+        }
+        String path = body.trim();
+        try {
+            Path target = Paths.get(path.isEmpty() ? dictionaryPath : path).toAbsolutePath().normalize();
+            // 先只按路径字符串检查，目录外的路径不访问文件系统，不会通过404/403的差别泄露文件是否存在；
+            // 再按真实路径检查，防止目录内的符号链接指向目录外
+            if (!path.isEmpty() && !(target.startsWith(reloadDir) || target.startsWith(reloadDirReal))) {
+                respond(exchange, 403, "{\"error\":" + quote("只能加载目录 " + reloadDir + " 内的词典") + "}");
+                return;
+            }
+            Path real = target.toRealPath();
+            if (!path.isEmpty() && !real.startsWith(reloadDirReal)) {
+                respond(exchange, 403, "{\"error\":" + quote("只能加载目录 " + reloadDir + " 内的词典") + "}");
+                return;
+            }
+            reload(real.toString());
+        } catch (IOException | InvalidPathException e) {
+            respond(exchange, 500, "{\"error\":" + quote("读取敏感词文件失败: " + e.getMessage()) + "}");
+            return;
+        }
+        respond(exchange, 200, "{\"words\":" + matcher.get().size() + "}");
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, "{\"error\":\"只支持GET\"}");
+            return;
+        }
+        SensitiveWordMatcher ac = matcher.get();
+        long batchCount = batches.sum();
+        String body = "{"
+                + "\"requests\":" + requests.sum()
+                + ",\"rejected\":" + rejected.sum()
+                + ",\"errors\":" + errors.sum()
+                + ",\"pending\":" + batcher.pending()
+                + ",\"batches\":" + batchCount
+                + ",\"avgBatchSize\":" + (batchCount == 0 ? 0 : (double) batchedTasks.sum() / batchCount)
+                + ",\"scannedChars\":" + scannedChars.sum()
+                + ",\"scanNanos\":" + scanNanos.sum()
+                + ",\"words\":" + ac.size()
+                + ",\"engine\":" + quote(ac.engine().name())
+                + ",\"alphabet\":" + ac.profile().alphabetSize()
+                + ",\"reloads\":" + reloads.sum()
+                + ",\"lastReloadMillis\":" + lastReloadMillis
+                + "}";
+        respond(exchange, 200, body);
+    }
+
+    private void handleHot(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, "{\"error\":\"只支持GET\"}");
+            return;
+        }
+        SensitiveWordMatcher ac = matcher.get();
+        StringBuilder sb = new StringBuilder("{\"hot\":[");
+        for (HeavyHitterTracker.HeavyHitter hitter : ac.hitTracker().snapshot(ac::word)) {
+            if (sb.charAt(sb.length() - 1) != '[') {
+                sb.append(',');
+            }
+            sb.append("{\"word\":").append(quote(hitter.word())).append(",\"count\":").append(hitter.count()).append('}');
+        }
+        respond(exchange, 200, sb.append("]}").toString());
+    }
+
+    /* 读取请求体，超过maxBodyBytes时返回null；声明的Content-Length超限时不读取 */
+    private String readBody(HttpExchange exchange) throws IOException {
+        String declared = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (declared != null && Long.parseLong(declared.trim()) > maxBodyBytes) {
+            return null;
+        }
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readNBytes(maxBodyBytes + 1);
+            return bytes.length > maxBodyBytes ? null : new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /* JSON字符串转义 */
+    static String quote(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (ch < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) ch));
+                    } else {
+                        sb.append(ch);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /*
+     * 用法：ScanServer <词典路径> [端口] [变体表路径]
+     * 监听地址通过 -Dscan.bindAddress（默认127.0.0.1）配置，
+     * 时间窗和批次大小通过 -Dscan.batchWindowMicros（默认200）和 -Dscan.maxBatch（默认64）配置，
+     * 热词统计通过 -Dscan.hotWindowSeconds（默认60）和 -Dscan.hotTopK（默认20）配置
+     */
+    public static void main(String[] args) throws IOException {
+        String dictionary = args.length > 0 ? args[0] : "src/test/java/data/sensitive_words_10000.txt";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+        VariantTable variants = args.length > 2 ? VariantTable.fromFile(args[2]) : null;
+        long window = Long.getLong("scan.batchWindowMicros", 200);
+        int maxBatch = Integer.getInteger("scan.maxBatch", 64);
+
+        InetAddress bind = InetAddress.getByName(System.getProperty("scan.bindAddress", "127.0.0.1"));
+
+        ScanServer scanServer = new ScanServer(dictionary, variants, new InetSocketAddress(bind, port), window, maxBatch);
+        scanServer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(scanServer::stop));
+        System.out.printf("敏感词扫描服务已启动：http://%s:%d，词数：%d%n",
+                bind.getHostAddress(), scanServer.port(), scanServer.matcher.get().size());
+    }
+}
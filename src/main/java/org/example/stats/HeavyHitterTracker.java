@@ -0,0 +1,360 @@
+package org.example.stats;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+
+/*
+ * 滑动时间窗内命中最多的敏感词（heavy hitters）。直接挂在匹配器的命中回调上，每次命中只做几次原子自增，
+ * 不需要把每条命中序列化到下游再聚合。
+ *
+ * 时间窗被切成若干个桶，每个桶是一个Count-Min sketch加一个候选词表：
+ * 1. sketch的计数器按线程分成多个条带（stripe），不同线程大多写不同的缓存行，减少争用；
+ * 2. 候选词表是开放寻址的原子数组，记录本桶出现过的词编号，只用于快照时枚举候选。探测范围内的槽都被占用时，
+ *    按1/ADMIT_SAMPLE的概率尝试准入：本词在本桶的估计值超过范围内估计值最小的候选时替换它。
+ *    这样候选表被早到的长尾词占满后，正在飙升的词仍然能挤进候选，准入的开销只摊在少数几次记录上；
+ * 3. 桶过期时用CAS换上新桶，旧桶直接丢弃，整个写路径无锁。
+ * 快照时对候选词估计窗口内的计数（各行取最小，各桶各条带求和），用大小为K的小顶堆取前K个。
+ * 计数是近似值：Count-Min只会高估，不会低估；准入是抽样的，被替换掉的低频词不再出现在快照中。
+ */
+public class HeavyHitterTracker {
+
+    /* 快照中的一项 */
+    public static final class HeavyHitter {
+        private final int wordId;
+        private final String word;
+        private final long count;
+
+        HeavyHitter(int wordId, String word, long count) {
+            this.wordId = wordId;
+            this.word = word;
+            this.count = count;
+        }
+
+        public int wordId() {
+            return wordId;
+        }
+
+        /* 不带词表的快照中为null */
+        public String word() {
+            return word;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return (word != null ? word : String.valueOf(wordId)) + "=" + count;
+        }
+    }
+
+    private static final int MAX_PROBES = 8;
+    /* 探测范围已满时，平均每ADMIT_SAMPLE次记录尝试一次按计数准入 */
+    private static final int ADMIT_SAMPLE = 16;
+
+    private final int depth;
+    private final int width;
+    private final int stripes;
+    private final int candidateCapacity;
+    private final int topK;
+    private final long bucketMillis;
+    private final int[] seeds;
+
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    /* 一个时间桶：counters[((stripe * depth) + row) * width + column]，candidates中保存 词编号 + 1，0表示空槽 */
+    private final class Bucket {
+        final long epoch;
+        final AtomicIntegerArray counters = new AtomicIntegerArray(stripes * depth * width);
+        final AtomicIntegerArray candidates = new AtomicIntegerArray(candidateCapacity);
+
+        Bucket(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+
+    /* 默认：4行 x 2048列的sketch，6个桶，每桶4096个候选 */
+    public HeavyHitterTracker(int topK, long window, TimeUnit unit) {
+        this(topK, window, unit, 6, 4, 2048, 4096);
+    }
+
+    /*
+     * topK：快照返回的词数；window：滑动窗口长度，按buckets等分；
+     * depth/width：Count-Min sketch的行数和列数（width取2的幂）；candidateCapacity：每个桶的候选词表大小
+     */
+    public HeavyHitterTracker(int topK, long window, TimeUnit unit, int buckets, int depth, int width,
+                              int candidateCapacity) {
+        if (topK <= 0 || buckets <= 0 || depth <= 0 || width <= 0 || candidateCapacity <= 0) {
+            throw new IllegalArgumentException("参数必须为正数");
+        }
+        this.topK = topK;
+        this.depth = depth;
+        this.width = Integer.highestOneBit(width * 2 - 1);
+        this.candidateCapacity = Integer.highestOneBit(candidateCapacity * 2 - 1);
+        this.stripes = Integer.highestOneBit(Math.min(8, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        this.bucketMillis = Math.max(1, unit.toMillis(window) / buckets);
+        this.seeds = new int[depth];
+        for (int row = 0; row < depth; row++) {
+            seeds[row] = 0x9E3779B9 * (2 * row + 1) + 0x7F4A7C15 * row;
+        }
+        this.buckets = new AtomicReferenceArray<>(buckets);
+    }
+
+    private int column(int row, int wordId) {
+        int h = (wordId + 1) * seeds[row];
+        h ^= h >>> 15;
+        h *= 0x2C1B3C6D;
+        h ^= h >>> 12;
+        return h & (width - 1);
+    }
+
+    /* 当前时间所在的桶，过期时用CAS换上新桶；CAS失败说明别的线程已经换过，重新读取即可 */
+    private Bucket current(long epoch) {
+        int index = (int) (epoch % buckets.length());
+        while (true) {
+            Bucket bucket = buckets.get(index);
+            if (bucket != null && bucket.epoch >= epoch) {
+                return bucket;
+            }
+            Bucket fresh = new Bucket(epoch);
+            if (buckets.compareAndSet(index, bucket, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    /* 记录一次命中，供匹配器的命中回调直接调用 */
+    public void record(int wordId) {
+        Bucket bucket = current(System.currentTimeMillis() / bucketMillis);
+        int stripe = (int) Thread.currentThread().threadId() & (stripes - 1);
+        int base = stripe * depth * width;
+        for (int row = 0; row < depth; row++) {
+            bucket.counters.getAndIncrement(base + row * width + column(row, wordId));
+        }
+        int mask = candidateCapacity - 1;
+        int slot = (wordId * 0x9E3779B9 >>> 7) & mask;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int value = bucket.candidates.get(slot);
+            if (value == 0) {
+                if (bucket.candidates.compareAndSet(slot, 0, wordId + 1)) {
+                    return;
+                }
+                value = bucket.candidates.get(slot);
+            }
+            if (value == wordId + 1) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (ThreadLocalRandom.current().nextInt(ADMIT_SAMPLE) == 0) {
+            admit(bucket, wordId, (wordId * 0x9E3779B9 >>> 7) & mask);
+        }
+    }
+
+    /* 探测范围[first, first + MAX_PROBES)已满：本词在本桶的估计值超过其中最小的候选时替换它 */
+    private void admit(Bucket bucket, int wordId, int first) {
+        int mask = candidateCapacity - 1;
+        long own = bucketEstimate(bucket, wordId);
+        int victimSlot = -1;
+        int victim = 0;
+        long victimCount = own;
+        for (int probe = 0, slot = first; probe < MAX_PROBES; probe++, slot = (slot + 1) & mask) {
+            int value = bucket.candidates.get(slot);
+            if (value == wordId + 1) {
+                return;
+            }
+            long count = value == 0 ? -1 : bucketEstimate(bucket, value - 1);
+            if (count < victimCount) {
+                victimSlot = slot;
+                victim = value;
+                victimCount = count;
+            }
+        }
+        if (victimSlot >= 0) {
+            bucket.candidates.compareAndSet(victimSlot, victim, wordId + 1);
+        }
+    }
+
+    /* 词编号在单个桶内的估计命中数 */
+    private long bucketEstimate(Bucket bucket, int wordId) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int column = column(row, wordId);
+            long sum = 0;
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                sum += bucket.counters.get((stripe * depth + row) * width + column);
+            }
+            min = Math.min(min, sum);
+        }
+        return min;
+    }
+
+    /* 窗口内词编号的估计命中数 */
+    public long estimate(int wordId) {
+        return estimate(wordId, liveBuckets(System.currentTimeMillis() / bucketMillis));
+    }
+
+    private long estimate(int wordId, List<Bucket> live) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int column = column(row, wordId);
+            long sum = 0;
+            for (Bucket bucket : live) {
+                for (int stripe = 0; stripe < stripes; stripe++) {
+                    sum += bucket.counters.get((stripe * depth + row) * width + column);
+                }
+            }
+            min = Math.min(min, sum);
+        }
+        return min;
+    }
+
+    private List<Bucket> liveBuckets(long epoch) {
+        List<Bucket> live = new ArrayList<>(buckets.length());
+        for (int i = 0; i < buckets.length(); i++) {
+            Bucket bucket = buckets.get(i);
+            if (bucket != null && bucket.epoch > epoch - buckets.length() && bucket.epoch <= epoch) {
+                live.add(bucket);
+            }
+        }
+        return live;
+    }
+
+    /* 窗口内命中最多的前K个词，按计数降序，只包含词编号 */
+    public List<HeavyHitter> snapshot() {
+        return snapshot(null);
+    }
+
+    /* 同上，words用于把词编号翻译成敏感词，例如 matcher::word */
+    public List<HeavyHitter> snapshot(IntFunction<String> words) {
+        List<Bucket> live = liveBuckets(System.currentTimeMillis() / bucketMillis);
+        BitSet seen = new BitSet();
+        /* 小顶堆，heapIds/heapCounts[0]为当前第K名 */
+        int[] heapIds = new int[topK];
+        long[] heapCounts = new long[topK];
+        int size = 0;
+        for (Bucket bucket : live) {
+            for (int slot = 0; slot < candidateCapacity; slot++) {
+                int value = bucket.candidates.get(slot);
+                if (value == 0 || seen.get(value - 1)) {
+                    continue;
+                }
+                int wordId = value - 1;
+                seen.set(wordId);
+                long count = estimate(wordId, live);
+                if (size < topK) {
+                    heapIds[size] = wordId;
+                    heapCounts[size] = count;
+                    siftUp(heapIds, heapCounts, size++);
+                } else if (count > heapCounts[0]) {
+                    heapIds[0] = wordId;
+                    heapCounts[0] = count;
+                    siftDown(heapIds, heapCounts, size);
+                }
+            }
+        }
+        List<HeavyHitter> result = new ArrayList<>(size);
+        while (size > 0) {
+            result.add(new HeavyHitter(heapIds[0], words == null ? null : words.apply(heapIds[0]), heapCounts[0]));
+            heapIds[0] = heapIds[--size];
+            heapCounts[0] = heapCounts[size];
+            siftDown(heapIds, heapCounts, size);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    private static void siftUp(int[] ids, long[] counts, int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (counts[parent] <= counts[i]) {
+                return;
+            }
+            swap(ids, counts, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] ids, long[] counts, int size) {
+        int i = 0;
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                return;
+            }
+            int smallest = left + 1 < size && counts[left + 1] < counts[left] ? left + 1 : left;
+            if (counts[i] <= counts[smallest]) {
+                return;
+            }
+            swap(ids, counts, i, smallest);
+            i = smallest;
+        }
+    }
+
+    private static void swap(int[] ids, long[] counts, int a, int b) {
+        int id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        long count = counts[a];
+        counts[a] = counts[b];
+        counts[b] = count;
+    }
+
+    /* 4个线程按长尾分布并发写入，对比快照估计值和精确计数 */
+    public static void main(String[] args) throws InterruptedException {
+        HeavyHitterTracker tracker = new HeavyHitterTracker(5, 60, TimeUnit.SECONDS);
+        int words = 10_000;
+        int perThread = 500_000;
+        AtomicLongArray exact = new AtomicLongArray(words);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            long seed = t;
+            threads[t] = new Thread(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < perThread; i++) {
+                    // 约一半的命中集中在编号0~9的词上
+                    int wordId = random.nextBoolean() ? random.nextInt(10) : random.nextInt(words);
+                    tracker.record(wordId);
+                    exact.incrementAndGet(wordId);
+                }
+            });
+            threads[t].start();
+        }
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        System.out.printf("写入耗时：%dms%n", (System.nanoTime() - start) / 1_000_000);
+
+        start = System.nanoTime();
+        List<HeavyHitter> top = tracker.snapshot(id -> "word" + id);
+        System.out.printf("快照耗时：%dus%n", (System.nanoTime() - start) / 1_000);
+        for (HeavyHitter hitter : top) {
+            System.out.printf("%s 估计：%d 精确：%d%n", hitter.word(), hitter.count(), exact.get(hitter.wordId()));
+        }
+
+        // 候选表先被2万个只出现一次的词占满，之后某个词突然飙升，快照中仍应排在第一
+        HeavyHitterTracker spike = new HeavyHitterTracker(5, 60, TimeUnit.SECONDS);
+        for (int wordId = 0; wordId < 20_000; wordId++) {
+            spike.record(wordId);
+        }
+        for (int i = 0; i < 100_000; i++) {
+            spike.record(50_000);
+        }
+        List<HeavyHitter> spiking = spike.snapshot();
+        System.out.println("飙升词快照：" + spiking);
+        if (spiking.isEmpty() || spiking.get(0).wordId() != 50_000) {
+            throw new AssertionError("飙升的词没有出现在快照中");
+        }
+    }
+}
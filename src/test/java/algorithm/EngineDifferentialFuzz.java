@@ -0,0 +1,607 @@
+package algorithm;
+/*
+ *项目名: sensitive_word_processing
+ *文件名: EngineDifferentialFuzz
+ *描述: 各匹配引擎的随机差分测试 + 吞吐量回归门禁
+
+ */
+
+import algorithm.ac.AhoCorasickAutomation;
+import algorithm.ac.AhoCorasickAutomationCH;
+import algorithm.ac.AhoCorasickAutomationEN;
+import algorithm.ac.AhoCorasickCodePoint;
+import algorithm.ac.AhoCorasickFile;
+import algorithm.ac.VariantTable;
+import algorithm.dfa.DeterministicFiniteAutomaton;
+import org.example.SensitiveWordMatcher;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/*
+ * 1. 差分测试：随机生成词典和文本，把每个引擎的结果和朴素实现（逐词indexOf；间隔、忽略码点、变体用逐词动态规划）比较，
+ *    结果不一致时打印种子、词典和文本；
+ *    偶数轮把 -Dac.parallelThreshold 设为0，让小词典也走并行构建失败指针的分支；
+ * 2. 吞吐量门禁：在固定语料上交替测量每个引擎和朴素实现的吞吐量，取多轮比值的中位数（消除机器差异和偶发抖动），
+ *    与基线文件中的比值比较，低于 基线 * (1 - 容差) 即判定为性能回退；基线文件中的 <引擎名>.tolerance 可以为
+ *    波动较大的引擎单独放宽容差；
+ * 3. 构建耗时：10万词典分别以默认阈值和串行构建失败指针，比较耗时和匹配结果。
+ *
+ * 参数（系统属性）：
+ *   -Dfuzz.seed=1            随机种子
+ *   -Dfuzz.rounds=300        差分测试轮数
+ *   -Dfuzz.tolerance=0.3     默认吞吐量容差
+ *   -Dfuzz.updateBaseline    用本次结果覆盖基线文件
+ *   -Dfuzz.skipPerf          只做差分测试
+ * 任何不一致或回退都会以非0状态码退出。
+ */
+public class EngineDifferentialFuzz {
+
+    private static final Path BASELINE = Paths.get("src/test/java/data/engine_throughput.properties");
+    /* 基线文件中 <引擎名>.tolerance 为该引擎单独的容差，没有时用 -Dfuzz.tolerance */
+    private static final String TOLERANCE_SUFFIX = ".tolerance";
+    private static final String LARGE_DICTIONARY = "src/test/java/data/sensitive_words_100000.txt";
+    /* 失败指针并行构建的阈值，见AhoCorasickAutomation、AhoCorasickFile、AhoCorasickCodePoint */
+    private static final String PARALLEL_THRESHOLD = "ac.parallelThreshold";
+
+    /* 引擎应当给出的结果，由朴素实现计算 */
+    private interface Reference {
+        Map<String, List<Integer>> expected(List<String> words, String text);
+    }
+
+    private static final Reference ALL = EngineDifferentialFuzz::naiveAll;
+
+    /* 变体测试使用的等价类，"c𠮷"包含代理对 */
+    private static final String[] VARIANT_CLASSES = {"ab", "de", "新疆", "停饭", "c𠮷"};
+    private static final VariantTable VARIANTS = new VariantTable();
+    /* 码点 -> 所属等价类的代表码点（类中第一个码点），由VARIANT_CLASSES独立计算，不依赖VariantTable的实现 */
+    private static final Map<Integer, Integer> CANONICAL = new HashMap<>();
+
+    static {
+        for (String chars : VARIANT_CLASSES) {
+            VARIANTS.addClass(chars);
+            int[] members = chars.codePoints().toArray();
+            for (int cp : members) {
+                CANONICAL.put(cp, members[0]);
+            }
+        }
+    }
+
+    private static int canonical(int cp) {
+        return CANONICAL.getOrDefault(cp, cp);
+    }
+
+    private interface Matcher {
+        Map<String, List<Integer>> find(String text);
+    }
+
+    private interface Factory {
+        Matcher build(List<String> words, Path file) throws IOException;
+    }
+
+    private static final class Engine {
+        final String name;
+        final Reference reference;
+        final boolean asciiOnly;
+        final Factory factory;
+
+        Engine(String name, Reference reference, boolean asciiOnly, Factory factory) {
+            this.name = name;
+            this.reference = reference;
+            this.asciiOnly = asciiOnly;
+            this.factory = factory;
+        }
+    }
+
+    private static final List<Engine> ENGINES = new ArrayList<>();
+
+    static {
+        ENGINES.add(new Engine("AhoCorasickAutomation", ALL, false,
+                (words, file) -> new AhoCorasickAutomation(file.toString())::find));
+        ENGINES.add(new Engine("AhoCorasickFile", ALL, false, (words, file) -> {
+            AhoCorasickFile ac = new AhoCorasickFile(file.toString());
+            return text -> copy(ac.find(text));
+        }));
+        ENGINES.add(new Engine("AhoCorasickAutomationCH", ALL, false,
+                (words, file) -> new AhoCorasickAutomationCH(words)::find));
+        ENGINES.add(new Engine("AhoCorasickAutomationEN", ALL, true,
+                (words, file) -> new AhoCorasickAutomationEN(words)::find));
+        ENGINES.add(new Engine("DeterministicFiniteAutomaton", ALL, false,
+                (words, file) -> new DeterministicFiniteAutomaton(file.toString())::filter));
+        ENGINES.add(new Engine("AhoCorasickCodePoint", ALL, false,
+                (words, file) -> new AhoCorasickCodePoint(words)::find));
+        ENGINES.add(new Engine("AhoCorasickCodePoint.gap0", ALL, false, (words, file) -> {
+            AhoCorasickCodePoint ac = new AhoCorasickCodePoint(words);
+            return text -> ac.findWithGaps(text, 0);
+        }));
+        for (int gap = 1; gap <= 2; gap++) {
+            int maxGap = gap;
+            ENGINES.add(new Engine("AhoCorasickCodePoint.gap" + gap,
+                    (words, text) -> naiveGaps(words, text, maxGap, null, false), false, (words, file) -> {
+                AhoCorasickCodePoint ac = new AhoCorasickCodePoint(words);
+                return text -> ac.findWithGaps(text, maxGap);
+            }));
+        }
+        ENGINES.add(new Engine("AhoCorasickCodePoint.emoji",
+                (words, text) -> naiveGaps(words, text, 0, AhoCorasickCodePoint.EMOJI, false), false,
+                (words, file) -> new AhoCorasickCodePoint(words, AhoCorasickCodePoint.EMOJI)::find));
+        ENGINES.add(new Engine("AhoCorasickCodePoint.variants",
+                (words, text) -> naiveGaps(words, text, 0, AhoCorasickCodePoint.EMOJI, true), false,
+                (words, file) -> new AhoCorasickCodePoint(words, AhoCorasickCodePoint.EMOJI, VARIANTS)::find));
+        ENGINES.add(new Engine("AhoCorasickCodePoint.variants.gap1",
+                (words, text) -> naiveGaps(words, text, 1, AhoCorasickCodePoint.EMOJI, true), false, (words, file) -> {
+            AhoCorasickCodePoint ac = new AhoCorasickCodePoint(words, AhoCorasickCodePoint.EMOJI, VARIANTS);
+            return text -> ac.findWithGaps(text, 1);
+        }));
+        for (SensitiveWordMatcher.Engine engine : SensitiveWordMatcher.Engine.values()) {
+            ENGINES.add(new Engine("SensitiveWordMatcher." + engine, ALL, false,
+                    (words, file) -> SensitiveWordMatcher.builder().words(words).engine(engine).build()::find));
+            ENGINES.add(new Engine("SensitiveWordMatcher." + engine + ".variants",
+                    (words, text) -> naiveGaps(words, text, 0, AhoCorasickCodePoint.EMOJI, true), false,
+                    (words, file) -> SensitiveWordMatcher.builder().words(words).engine(engine)
+                            .ignorable(AhoCorasickCodePoint.EMOJI).variants(VARIANTS).build()::find));
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        long seed = Long.getLong("fuzz.seed", 1L);
+        int rounds = Integer.getInteger("fuzz.rounds", 300);
+
+        int failures = differential(seed, rounds) + variantTableRejectsOverlap() + denseLimitEnforced();
+        if (System.getProperty("fuzz.skipPerf") == null) {
+            double tolerance = Double.parseDouble(System.getProperty("fuzz.tolerance", "0.3"));
+            failures += throughputGate(tolerance, System.getProperty("fuzz.updateBaseline") != null);
+            failures += buildTime(tolerance);
+        }
+        if (failures > 0) {
+            System.err.printf("失败：%d%n", failures);
+            System.exit(1);
+        }
+        System.out.println("全部通过");
+    }
+
+    /* ---------------- 差分测试 ---------------- */
+
+    /* 随机字母表：小ASCII字母表（大量重叠和前后缀）、常用汉字、含代理对的码点 */
+    private static final int[][] ALPHABETS = {
+            "abcde".codePoints().toArray(),
+            "新疆骚乱苹果发布会停止饭菜涨价".codePoints().toArray(),
+            "ab新疆😀🔥𠮷".codePoints().toArray(),
+    };
+
+    private static int differential(long seed, int rounds) throws IOException {
+        Random random = new Random(seed);
+        int failures = 0;
+        for (int round = 0; round < rounds; round++) {
+            // 随机词典很小，单层结点数达不到并行阈值；偶数轮把阈值设为0，强制每一层都走并行构建分支
+            System.setProperty(PARALLEL_THRESHOLD, round % 2 == 0 ? "0" : String.valueOf(Integer.MAX_VALUE));
+            int[] alphabet = ALPHABETS[round % ALPHABETS.length];
+            List<String> words = randomWords(random, alphabet, 1 + random.nextInt(30), 1 + random.nextInt(6));
+            Path file = writeDictionary(words);
+            try {
+                List<String> texts = new ArrayList<>();
+                for (int t = 0; t < 3; t++) {
+                    texts.add(randomText(random, alphabet, words, random.nextInt(200)));
+                }
+                texts.add(sprinkle(random, texts.get(0)));
+                boolean asciiWords = words.stream().allMatch(EngineDifferentialFuzz::isAscii);
+                for (Engine engine : ENGINES) {
+                    /* 只支持ASCII的引擎遇到非ASCII的词典或文本必须抛IllegalArgumentException，不能越界或给出错误结果 */
+                    if (engine.asciiOnly && !asciiWords) {
+                        failures += expectRejected(engine, seed, round, () -> engine.factory.build(words, file));
+                        continue;
+                    }
+                    Matcher matcher = engine.factory.build(words, file);
+                    /* 同一个实例连续查多段文本，检查结果不会在调用之间残留 */
+                    for (String text : texts) {
+                        if (engine.asciiOnly && !isAscii(text)) {
+                            failures += expectRejected(engine, seed, round, () -> matcher.find(text));
+                            continue;
+                        }
+                        Map<String, List<Integer>> expected = engine.reference.expected(words, text);
+                        Map<String, List<Integer>> actual = normalize(matcher.find(text));
+                        if (!expected.equals(actual)) {
+                            failures++;
+                            System.err.printf("[%s] 结果不一致 seed=%d round=%d%n  词典：%s%n  文本：%s%n  期望：%s%n  实际：%s%n",
+                                    engine.name, seed, round, words, text, expected, actual);
+                        }
+                    }
+                }
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+        System.clearProperty(PARALLEL_THRESHOLD);
+        System.out.printf("差分测试：%d轮，%d个引擎，不一致：%d%n", rounds, ENGINES.size(), failures);
+        return failures;
+    }
+
+    private static boolean isAscii(String s) {
+        return s.chars().allMatch(ch -> ch < 128);
+    }
+
+    private interface Call {
+        void run() throws IOException;
+    }
+
+    private static int expectRejected(Engine engine, long seed, int round, Call call) throws IOException {
+        try {
+            call.run();
+        } catch (IllegalArgumentException e) {
+            return 0;
+        } catch (RuntimeException e) {
+            System.err.printf("[%s] 非ASCII输入应抛IllegalArgumentException，实际抛出 %s seed=%d round=%d%n",
+                    engine.name, e, seed, round);
+            return 1;
+        }
+        System.err.printf("[%s] 非ASCII输入没有被拒绝 seed=%d round=%d%n", engine.name, seed, round);
+        return 1;
+    }
+
+    /* 同一个码点出现在两个等价类中必须报错，不能传递合并（"骚搔s" + "色s" 会让骚和色互相匹配） */
+    private static int variantTableRejectsOverlap() {
+        try {
+            new VariantTable().addClass("骚搔s").addClass("色s");
+        } catch (IllegalArgumentException e) {
+            return 0;
+        }
+        System.err.println("[VariantTable] 码点出现在两个等价类中时没有报错");
+        return 1;
+    }
+
+    /* 10万词典强制使用DENSE_ARRAY时应当明确报错，而不是尝试分配几GB的转移表 */
+    private static int denseLimitEnforced() throws IOException {
+        try {
+            SensitiveWordMatcher.builder().wordsFromFile("src/test/java/data/sensitive_words_100000.txt")
+                    .engine(SensitiveWordMatcher.Engine.DENSE_ARRAY).build();
+        } catch (IllegalArgumentException e) {
+            return 0;
+        }
+        System.err.println("[SensitiveWordMatcher.DENSE_ARRAY] 超大词典没有被拒绝");
+        return 1;
+    }
+
+    private static List<String> randomWords(Random random, int[] alphabet, int count, int maxLength) {
+        LinkedHashSet<String> words = new LinkedHashSet<>();
+        for (int i = 0; i < count; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = 1 + random.nextInt(maxLength);
+            for (int j = 0; j < length; j++) {
+                sb.appendCodePoint(alphabet[random.nextInt(alphabet.length)]);
+            }
+            words.add(sb.toString());
+        }
+        return new ArrayList<>(words);
+    }
+
+    /* 随机字符中间穿插词典中的词，保证有足够多的命中和重叠 */
+    private static String randomText(Random random, int[] alphabet, List<String> words, int length) {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < length) {
+            if (random.nextInt(4) == 0) {
+                sb.append(words.get(random.nextInt(words.size())));
+            } else {
+                sb.appendCodePoint(alphabet[random.nextInt(alphabet.length)]);
+            }
+        }
+        return sb.toString();
+    }
+
+    /* 在文本中随机插入会被EMOJI忽略的码点 */
+    private static String sprinkle(Random random, String text) {
+        int[] ignorable = "🙈\u200D\uFE0F☀".codePoints().toArray();
+        StringBuilder sb = new StringBuilder();
+        text.codePoints().forEach(cp -> {
+            if (random.nextInt(3) == 0) {
+                sb.appendCodePoint(ignorable[random.nextInt(ignorable.length)]);
+            }
+            sb.appendCodePoint(cp);
+        });
+        return sb.toString();
+    }
+
+    private static Path writeDictionary(List<String> words) throws IOException {
+        Path file = Files.createTempFile("sensitive_words_fuzz", ".txt");
+        Files.write(file, words, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    /* 朴素实现：每个词在文本中的全部出现位置 */
+    private static Map<String, List<Integer>> naiveAll(List<String> words, String text) {
+        Map<String, List<Integer>> result = new TreeMap<>();
+        for (String word : new LinkedHashSet<>(words)) {
+            for (int i = text.indexOf(word); i >= 0; i = text.indexOf(word, i + 1)) {
+                result.computeIfAbsent(word, k -> new ArrayList<>()).add(i);
+            }
+        }
+        return result;
+    }
+
+    /*
+     * 朴素实现：相邻两个字符之间最多插入maxGap个字符的匹配。对每个词做动态规划，
+     * best[j][q]为词的前j+1个码点以第q个码点结尾时最靠后的起点，每个词在每个终点上报告一次。
+     * ignorable不为null时文本和词中被忽略的码点先去掉；variants为true时按VARIANT_CLASSES比较，
+     * 去掉忽略码点并归一后相同的多个词只保留第一个
+     */
+    private static Map<String, List<Integer>> naiveGaps(List<String> words, String text, int maxGap,
+                                                        IntPredicate ignorable, boolean variants) {
+        IntUnaryOperator normal = variants ? EngineDifferentialFuzz::canonical : cp -> cp;
+        List<Integer> kept = new ArrayList<>();
+        List<Integer> keptPos = new ArrayList<>();
+        for (int i = 0; i < text.length(); ) {
+            int cp = text.codePointAt(i);
+            if (ignorable == null || !ignorable.test(cp)) {
+                kept.add(normal.applyAsInt(cp));
+                keptPos.add(i);
+            }
+            i += Character.charCount(cp);
+        }
+        int[] cps = kept.stream().mapToInt(Integer::intValue).toArray();
+        int[] pos = keptPos.stream().mapToInt(Integer::intValue).toArray();
+        Map<String, List<Integer>> result = new TreeMap<>();
+        Set<List<Integer>> seen = new HashSet<>();
+        for (String word : words) {
+            int[] w = word.codePoints().filter(cp -> ignorable == null || !ignorable.test(cp)).map(normal).toArray();
+            if (w.length == 0 || !seen.add(Arrays.stream(w).boxed().toList())) {
+                continue;
+            }
+            int[] prev = new int[cps.length];
+            int[] curr = new int[cps.length];
+            for (int q = 0; q < cps.length; q++) {
+                prev[q] = cps[q] == w[0] ? q : -1;
+            }
+            for (int j = 1; j < w.length; j++) {
+                for (int q = 0; q < cps.length; q++) {
+                    curr[q] = -1;
+                    if (cps[q] != w[j]) {
+                        continue;
+                    }
+                    for (int p = Math.max(0, q - maxGap - 1); p < q; p++) {
+                        curr[q] = Math.max(curr[q], prev[p]);
+                    }
+                }
+                int[] swap = prev;
+                prev = curr;
+                curr = swap;
+            }
+            for (int q = 0; q < cps.length; q++) {
+                if (prev[q] >= 0) {
+                    result.computeIfAbsent(word, k -> new ArrayList<>()).add(pos[prev[q]]);
+                }
+            }
+        }
+        return result;
+    }
+
+    /* 去掉空列表并排序，使不同引擎的结果可以直接比较 */
+    private static Map<String, List<Integer>> normalize(Map<String, List<Integer>> found) {
+        Map<String, List<Integer>> result = new TreeMap<>();
+        for (Map.Entry<String, List<Integer>> entry : found.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                List<Integer> positions = new ArrayList<>(entry.getValue());
+                Collections.sort(positions);
+                result.put(entry.getKey(), positions);
+            }
+        }
+        return result;
+    }
+
+    private static Map<String, List<Integer>> copy(Map<String, List<Integer>> found) {
+        Map<String, List<Integer>> result = new TreeMap<>();
+        found.forEach((word, positions) -> result.put(word, new ArrayList<>(positions)));
+        return result;
+    }
+
+    /* ---------------- 10万词典的构建耗时 ---------------- */
+
+    private interface Builder {
+        Matcher build() throws IOException;
+    }
+
+    /*
+     * 分别以默认阈值（多核时并行，单核时串行）和串行（阈值为Integer.MAX_VALUE）构建10万词典，预热一次后交替构建，各取5次的中位数耗时。
+     * 两种构建在同一段语料上的结果必须一致；默认构建比串行慢超过tolerance视为回退
+     */
+    private static int buildTime(double tolerance) throws IOException {
+        List<String> words = AhoCorasickCodePoint.readKeywordsFromFile(LARGE_DICTIONARY);
+        String text = corpus(new Random(7), words, 20_000);
+        Map<String, Builder> builders = new LinkedHashMap<>();
+        builders.put("AhoCorasickAutomation", () -> new AhoCorasickAutomation(LARGE_DICTIONARY)::find);
+        builders.put("AhoCorasickFile", () -> {
+            AhoCorasickFile ac = new AhoCorasickFile(LARGE_DICTIONARY);
+            return t -> copy(ac.find(t));
+        });
+        builders.put("AhoCorasickCodePoint", () -> new AhoCorasickCodePoint(words)::find);
+
+        int failures = 0;
+        for (Map.Entry<String, Builder> entry : builders.entrySet()) {
+            String name = entry.getKey();
+            long[] parallel = new long[5];
+            long[] sequential = new long[5];
+            Matcher parallelMatcher = null;
+            Matcher sequentialMatcher = null;
+            try {
+                entry.getValue().build(); // 预热：类加载、JIT
+                for (int i = 0; i < parallel.length; i++) {
+                    // 交替先后顺序，避免GC、JIT总是落在同一种构建上
+                    for (int k = 0; k < 2; k++) {
+                        boolean sequentialTurn = (i + k) % 2 == 0;
+                        if (sequentialTurn) {
+                            System.setProperty(PARALLEL_THRESHOLD, String.valueOf(Integer.MAX_VALUE));
+                        } else {
+                            System.clearProperty(PARALLEL_THRESHOLD);
+                        }
+                        System.gc(); // 上一次构建的自动机还在堆上，先回收，免得GC算到这一次头上
+                        long start = System.nanoTime();
+                        Matcher built = entry.getValue().build();
+                        long elapsed = System.nanoTime() - start;
+                        if (sequentialTurn) {
+                            sequential[i] = elapsed;
+                            sequentialMatcher = built;
+                        } else {
+                            parallel[i] = elapsed;
+                            parallelMatcher = built;
+                        }
+                    }
+                }
+            } finally {
+                System.clearProperty(PARALLEL_THRESHOLD);
+            }
+            long parallelMs = median(parallel) / 1_000_000;
+            long sequentialMs = median(sequential) / 1_000_000;
+            System.out.printf("%-30s 构建10万词典 并行 %dms  串行 %dms  (%d核)%n",
+                    name, parallelMs, sequentialMs, Runtime.getRuntime().availableProcessors());
+            if (!normalize(parallelMatcher.find(text)).equals(normalize(sequentialMatcher.find(text)))) {
+                failures++;
+                System.err.printf("[%s] 并行构建与串行构建的匹配结果不一致%n", name);
+            }
+            if (parallelMs > sequentialMs * (1 + tolerance)) {
+                failures++;
+                System.err.printf("[%s] 并行构建比串行慢：%dms > %dms * %.2f%n", name, parallelMs, sequentialMs, 1 + tolerance);
+            }
+        }
+        return failures;
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    /* ---------------- 吞吐量门禁 ---------------- */
+
+    private static int throughputGate(double tolerance, boolean updateBaseline) throws IOException {
+        Random random = new Random(42);
+        List<String> cjkWords = AhoCorasickCodePoint.readKeywordsFromFile("src/test/java/data/sensitive_words_1000.txt");
+        String cjkText = corpus(random, cjkWords, 50_000);
+        int[] lower = "abcdefghijklmnopqrstuvwxyz".codePoints().toArray();
+        List<String> asciiWords = randomWords(random, lower, 1000, 8);
+        String asciiText = randomText(random, lower, asciiWords, 50_000);
+
+        Matcher cjkNaive = text -> naiveAll(cjkWords, text);
+        Matcher asciiNaive = text -> naiveAll(asciiWords, text);
+        runFor(cjkNaive, cjkText, 300_000_000L);
+        runFor(asciiNaive, asciiText, 300_000_000L);
+
+        Map<String, Double> ratios = new LinkedHashMap<>();
+        Path cjkFile = writeDictionary(cjkWords);
+        Path asciiFile = writeDictionary(asciiWords);
+        try {
+            for (Engine engine : ENGINES) {
+                boolean ascii = engine.asciiOnly;
+                Matcher matcher = ascii ? engine.factory.build(asciiWords, asciiFile) : engine.factory.build(cjkWords, cjkFile);
+                double[] measured = ratio(matcher, ascii ? asciiNaive : cjkNaive, ascii ? asciiText : cjkText);
+                ratios.put(engine.name, measured[0]);
+                System.out.printf("%-30s %10.0f 字符/ms  相对朴素实现 %.2fx%n", engine.name, measured[1], measured[0]);
+            }
+        } finally {
+            Files.deleteIfExists(cjkFile);
+            Files.deleteIfExists(asciiFile);
+        }
+
+        Properties baseline = new Properties();
+        if (Files.exists(BASELINE)) {
+            try (InputStream in = Files.newInputStream(BASELINE)) {
+                baseline.load(in);
+            }
+        }
+        if (updateBaseline || baseline.isEmpty()) {
+            writeBaseline(ratios, baseline);
+            System.out.println("已写入吞吐量基线：" + BASELINE);
+            return 0;
+        }
+
+        int regressions = 0;
+        for (Map.Entry<String, Double> entry : ratios.entrySet()) {
+            String expected = baseline.getProperty(entry.getKey());
+            if (expected == null) {
+                System.out.printf("[%s] 基线中没有记录，跳过%n", entry.getKey());
+                continue;
+            }
+            double engineTolerance = Double.parseDouble(
+                    baseline.getProperty(entry.getKey() + TOLERANCE_SUFFIX, String.valueOf(tolerance)));
+            double floor = Double.parseDouble(expected) * (1 - engineTolerance);
+            if (entry.getValue() < floor) {
+                regressions++;
+                System.err.printf("[%s] 吞吐量回退：%.2fx，基线 %sx，容差 %.2f，下限 %.2fx%n",
+                        entry.getKey(), entry.getValue(), expected, engineTolerance, floor);
+            }
+        }
+        return regressions;
+    }
+
+    /* 按名称排序写出基线，保留原文件中各引擎单独设置的容差 */
+    private static void writeBaseline(Map<String, Double> ratios, Properties previous) throws IOException {
+        Map<String, String> entries = new TreeMap<>();
+        ratios.forEach((name, ratio) -> entries.put(name, String.format("%.2f", ratio)));
+        for (String key : previous.stringPropertyNames()) {
+            if (key.endsWith(TOLERANCE_SUFFIX)) {
+                entries.put(key, previous.getProperty(key));
+            }
+        }
+        List<String> lines = new ArrayList<>();
+        lines.add("# engine throughput relative to naive indexOf reference, see EngineDifferentialFuzz");
+        lines.add("# <engine>=median ratio, <engine>.tolerance=allowed drop (default -Dfuzz.tolerance)");
+        entries.forEach((key, value) -> lines.add(key + "=" + value));
+        Files.write(BASELINE, lines, StandardCharsets.ISO_8859_1);
+    }
+
+    private static String corpus(Random random, List<String> words, int length) {
+        StringBuilder chars = new StringBuilder();
+        for (String word : words) {
+            chars.append(word);
+        }
+        int[] alphabet = chars.codePoints().distinct().toArray();
+        return randomText(random, alphabet, words, length);
+    }
+
+    /*
+     * 预热约300ms后交替测量引擎和朴素实现各7轮，每轮至少100ms，取每轮两者吞吐量之比的中位数。
+     * 交替测量让机器负载的波动同时落在分子和分母上，中位数不受个别被打断的轮次影响。
+     * 返回 {比值中位数, 引擎吞吐量中位数（字符/毫秒）}
+     */
+    private static double[] ratio(Matcher matcher, Matcher naive, String text) {
+        runFor(matcher, text, 300_000_000L);
+        double[] ratios = new double[7];
+        double[] charsPerMs = new double[ratios.length];
+        for (int i = 0; i < ratios.length; i++) {
+            charsPerMs[i] = runFor(matcher, text, 100_000_000L);
+            ratios[i] = charsPerMs[i] / runFor(naive, text, 100_000_000L);
+        }
+        Arrays.sort(ratios);
+        Arrays.sort(charsPerMs);
+        return new double[]{ratios[ratios.length / 2], charsPerMs[charsPerMs.length / 2]};
+    }
+
+    private static double runFor(Matcher matcher, String text, long nanos) {
+        long start = System.nanoTime();
+        long chars = 0;
+        long elapsed;
+        do {
+            matcher.find(text);
+            chars += text.length();
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < nanos);
+        return chars / (elapsed / 1e6);
+    }
+}
@@ -14,6 +14,9 @@ import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 public class AhoCorasickAutomation {
 
@@ -27,7 +30,15 @@ public class AhoCorasickAutomation {
         }
     }
 
+    /*
+     * 单层结点数少于该值时直接在当前线程处理，避免fork-join的调度开销。
+     * 可以用 -Dac.parallelThreshold 覆盖（每次构建时读取），差分测试设为0以覆盖并行分支
+     */
+    private static final int PARALLEL_THRESHOLD = 1024;
+
     private final Node root = new Node();
+    private int nodeCount = 1;
+    private int maxLength;
 
     public AhoCorasickAutomation(String keywordFilePath) throws IOException {
         List<String> keywords = readKeywordsFromFile(keywordFilePath);
@@ -57,35 +68,74 @@ public class AhoCorasickAutomation {
         for (String word : keywords) {
             Node current = root;
             for (char ch : word.toCharArray()) {
-                current = current.children.computeIfAbsent(ch, k -> new Node());
+                current = current.children.computeIfAbsent(ch, k -> {
+                    nodeCount++;
+                    return new Node();
+                });
             }
             current.word = word;
+            maxLength = Math.max(maxLength, word.length());
         }
     }
 
+    /*
+     * 按层构建失败指针：先把结点按广度优先顺序放进数组（下标即结点编号），再逐层计算。
+     * 失败指针只会指向更浅的层，所以同一层内的结点互不依赖，可以在fork-join线程池中并行计算；
+     * 每层结束时的join保证下一层能看到上一层写入的fail。
+     */
     private void buildFailureLinks() {
-        Queue<Node> queue = new LinkedList<>();
-        for (Node child : root.children.values()) {
-            child.fail = root;
-            queue.add(child);
+        // 公共线程池只有一个并行度（单核）时并行只有调度开销，默认走串行；显式设置的阈值优先
+        int threshold = Integer.getInteger("ac.parallelThreshold",
+                ForkJoinPool.getCommonPoolParallelism() > 1 ? PARALLEL_THRESHOLD : Integer.MAX_VALUE);
+        // 广度优先顺序的结点数组本身就是队列，下标即结点编号
+        Node[] nodes = new Node[nodeCount];
+        int[] parent = new int[nodeCount];
+        char[] inChar = new char[nodeCount];
+        int[] levelStart = new int[maxLength + 3];
+        nodes[0] = root;
+        int tail = 1;
+        levelStart[1] = 1;
+        for (int depth = 0; levelStart[depth + 1] > levelStart[depth]; depth++) {
+            for (int id = levelStart[depth]; id < levelStart[depth + 1]; id++) {
+                for (Map.Entry<Character, Node> entry : nodes[id].children.entrySet()) {
+                    nodes[tail] = entry.getValue();
+                    parent[tail] = id;
+                    inChar[tail] = entry.getKey();
+                    tail++;
+                }
+            }
+            levelStart[depth + 2] = tail;
         }
 
-        while (!queue.isEmpty()) {
-            Node parent = queue.poll();
-            for (Map.Entry<Character, Node> entry : parent.children.entrySet()) {
-                char ch = entry.getKey();
-                Node child = entry.getValue();
-
-                Node failTo = parent.fail;
-                while (failTo != null && !failTo.children.containsKey(ch)) {
-                    failTo = failTo.fail;
+        for (int depth = 1; levelStart[depth + 1] > levelStart[depth]; depth++) {
+            int from = levelStart[depth];
+            int to = levelStart[depth + 1];
+            IntConsumer link = id -> linkFailure(nodes[id], nodes[parent[id]], inChar[id]);
+            if (to - from < threshold) {
+                for (int id = from; id < to; id++) {
+                    link.accept(id);
                 }
-                child.fail = (failTo != null) ? failTo.children.get(ch) : root;
-                if (child.fail == null) child.fail = root;
+            } else {
+                IntStream.range(from, to).parallel().forEach(link);
+            }
+        }
+    }
 
-                queue.add(child);
+    private void linkFailure(Node child, Node parent, char ch) {
+        if (parent == root) {
+            child.fail = root;
+            return;
+        }
+        Node failTo = parent.fail;
+        while (failTo != null) {
+            Node next = failTo.children.get(ch);
+            if (next != null) {
+                child.fail = next;
+                return;
             }
+            failTo = failTo.fail;
         }
+        child.fail = root;
     }
 
     public Map<String, List<Integer>> find(String text) {
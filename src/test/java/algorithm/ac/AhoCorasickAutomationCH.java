@@ -98,6 +98,8 @@ public class AhoCorasickAutomationCH {
 
     /* 在文本中查找所有目标字符串 */
     public HashMap<String, List<Integer>> find(String text) {
+        // 每次查找重新创建结果容器，避免上一次的结果残留
+        initializeResult();
         Node curr = root;
         for (int i = 0; i < text.length(); i++) {
             char ch = text.charAt(i);
@@ -51,7 +51,7 @@ public class AhoCorasickAutomationEN {
         for(String targetStr : target){
             Node curr = root;
             for(int i = 0; i < targetStr.length(); i++){
-                char ch = targetStr.charAt(i);
+                char ch = checkAscii(targetStr, i);
                 if(curr.table[ch] == null){
                     curr.table[ch] = new Node();
                 }
@@ -117,7 +117,7 @@ public class AhoCorasickAutomationEN {
         int i = 0;
         while(i < text.length()){
             /*文本串中的字符*/
-            char ch = text.charAt(i);
+            char ch = checkAscii(text, i);
 
             /*文本串中的字符和AC自动机中的字符进行比较*/
             if(curr.table[ch] != null){
@@ -129,9 +129,12 @@ public class AhoCorasickAutomationEN {
                 }
 
                 /*这里很容易被忽视，因为一个目标串的中间某部分字符串可能正好包含另一个目标字符串，
-                 * 即使当前结点不表示一个目标字符串的终点，但到当前结点为止可能恰好包含了一个字符串*/
-                if(curr.fail != null && curr.fail.isWord()){
-                    result.get(curr.fail.str).add(i - curr.fail.str.length()+1);
+                 * 即使当前结点不表示一个目标字符串的终点，但到当前结点为止可能恰好包含了一个字符串。
+                 * 被包含的字符串可能不止一个，需要沿fail一直找到根结点*/
+                for(Node out = curr.fail; out != null; out = out.fail){
+                    if(out.isWord()){
+                        result.get(out.str).add(i - out.str.length()+1);
+                    }
                 }
 
                 /*索引自增，指向下一个文本串中的字符*/
@@ -151,6 +154,14 @@ public class AhoCorasickAutomationEN {
         return result;
     }
 
+    /*只能处理ASCII字符，遇到其他字符明确报错，而不是在table[ch]处数组越界*/
+    private static char checkAscii(String s, int i){
+        char ch = s.charAt(i);
+        if(ch >= ASCII){
+            throw new IllegalArgumentException(String.format("AhoCorasickAutomationEN只支持ASCII字符，下标%d处的字符\\u%04x超出范围", i, (int) ch));
+        }
+        return ch;
+    }
 
     public static void main(String[] args){
         List<String> target = new ArrayList<String>();
@@ -80,9 +80,8 @@ public class DeterministicFiniteAutomaton {
                 if (current.isEnd) {
                     String foundWord = text.substring(i, j + 1);
                     if (sensitiveWords.contains(foundWord)) {
+                        // 继续向后匹配，同一起点上更长的词也要报告
                         result.get(foundWord).add(i);
-                        // 找到后立即跳出，避免包含更短的词
-                        break;
                     }
                 }
                 j++;
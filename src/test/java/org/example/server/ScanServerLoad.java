@@ -0,0 +1,140 @@
+package org.example.server;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * 在本机启动ScanServer并用虚拟线程并发压测，检查各接口的返回并打印吞吐量和平均批次大小
+ */
+public class ScanServerLoad {
+
+    public static void main(String[] args) throws Exception {
+        String dictionary = "src/test/java/data/sensitive_words_10000.txt";
+        // 压测期间与启动词典来回切换，两份词典对测试文本的扫描结果不同
+        String alternate = Paths.get("src/test/java/data/sensitive_words.txt").toAbsolutePath().toString();
+        int clients = 200;
+        int requestsPerClient = 50;
+        String text = "新疆骚乱，苹果发布会停止了吗，饭菜涨价了吗";
+
+        // 调小请求体上限，便于检查413
+        System.setProperty("scan.maxBodyBytes", "4096");
+        ScanServer server = new ScanServer(dictionary, null, 0, Long.getLong("scan.batchWindowMicros", 200), 64);
+        server.start();
+        String base = "http://127.0.0.1:" + server.port();
+        HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+
+        try {
+            System.out.println("scan: " + post(client, base + "/scan", text));
+            System.out.println("mask: " + post(client, base + "/mask", text));
+            System.out.println("containsAny: " + post(client, base + "/containsAny", text));
+            System.out.println("reload: " + post(client, base + "/admin/reload", ""));
+            /* 管理接口和请求体大小的限制 */
+            // 词典目录外的文件无论是否存在都返回403
+            Path outside = Files.createTempFile("scan_server_outside", ".txt");
+            try {
+                expectStatus(client, HttpRequest.newBuilder(URI.create(base + "/admin/reload"))
+                        .POST(HttpRequest.BodyPublishers.ofString(outside.toString())).build(), 403);
+                expectStatus(client, HttpRequest.newBuilder(URI.create(base + "/admin/reload"))
+                        .POST(HttpRequest.BodyPublishers.ofString(outside + ".missing")).build(), 403);
+                expectStatus(client, HttpRequest.newBuilder(URI.create(base + "/admin/reload"))
+                        .POST(HttpRequest.BodyPublishers.ofString(Paths.get(dictionary).toAbsolutePath().getParent()
+                                .resolve("..").resolve("..").resolve("missing.txt").toString())).build(), 403);
+            } finally {
+                Files.deleteIfExists(outside);
+            }
+            expectStatus(client, HttpRequest.newBuilder(URI.create(base + "/admin/metrics"))
+                    .POST(HttpRequest.BodyPublishers.noBody()).build(), 405);
+            expectStatus(client, HttpRequest.newBuilder(URI.create(base + "/scan"))
+                    .POST(HttpRequest.BodyPublishers.ofString("骚".repeat(4096))).build(), 413);
+
+            String expected = post(client, base + "/scan", text);
+            post(client, base + "/admin/reload", alternate);
+            String expectedAlternate = post(client, base + "/scan", text);
+            post(client, base + "/admin/reload", "");
+            System.out.println("scan（切换后的词典）: " + expectedAlternate);
+            if (expected.equals(expectedAlternate)) {
+                throw new AssertionError("两份词典的扫描结果相同，无法检查重新加载");
+            }
+
+            /* 压测的同时不停地重新加载词典：每个响应都必须完整对应其中一份词典，不能是两者的混合或错误 */
+            AtomicInteger mismatches = new AtomicInteger();
+            AtomicInteger reloads = new AtomicInteger();
+            AtomicBoolean loading = new AtomicBoolean(true);
+            long start = System.nanoTime();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                Future<?> reloader = executor.submit(() -> {
+                    while (loading.get()) {
+                        String target = reloads.get() % 2 == 0 ? alternate : "";
+                        if (!post(client, base + "/admin/reload", target).startsWith("{\"words\":")) {
+                            throw new AssertionError("重新加载失败");
+                        }
+                        reloads.incrementAndGet();
+                    }
+                    return null;
+                });
+                List<Future<?>> futures = new ArrayList<>();
+                for (int c = 0; c < clients; c++) {
+                    futures.add(executor.submit(() -> {
+                        for (int r = 0; r < requestsPerClient; r++) {
+                            String body = post(client, base + "/scan", text);
+                            if (!expected.equals(body) && !expectedAlternate.equals(body)) {
+                                mismatches.incrementAndGet();
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+                loading.set(false);
+                reloader.get();
+            }
+            long elapsed = System.nanoTime() - start;
+            int total = clients * requestsPerClient;
+            System.out.printf("请求数：%d，不一致：%d，期间重新加载：%d次，耗时：%dms，吞吐：%.0f req/s%n",
+                    total, mismatches.get(), reloads.get(), elapsed / 1_000_000, total * 1e9 / elapsed);
+            System.out.println("metrics: " + get(client, base + "/admin/metrics"));
+            System.out.println("hot: " + get(client, base + "/admin/hot"));
+            if (reloads.get() == 0) {
+                throw new AssertionError("压测期间没有发生重新加载");
+            }
+            if (mismatches.get() > 0) {
+                throw new AssertionError("并发请求返回结果不一致");
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static String post(HttpClient client, String url, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    private static void expectStatus(HttpClient client, HttpRequest request, int expected) throws Exception {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        System.out.println(request.method() + " " + request.uri().getPath() + ": " + response.statusCode() + " " + response.body());
+        if (response.statusCode() != expected) {
+            throw new AssertionError("期望状态码 " + expected + "，实际 " + response.statusCode());
+        }
+    }
+
+    private static String get(HttpClient client, String url) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+}